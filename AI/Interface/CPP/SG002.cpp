@@ -1,6 +1,8 @@
 #include <iostream>
 #include <vector>
 #include <set>
+#include <map>
+#include <string>
 
 #ifndef SG002
 #define SG002
@@ -13,6 +15,8 @@ using namespace std;
  * played play(GameWorld&) will be called. The GameWorld contains
  * the whole game state. The UAI can perform actions by calling
  * gameWorld.move(...), gameWorld.fight(...) and gameWorld.produce(...)
+ * If startGame(true) is called, the server only sends the changes of the
+ * GameObjects each round (protocol version 2), which is faster on big maps.
  */
 
 /*
@@ -125,6 +129,8 @@ class Action {
  */
 class GameObject {
 	public:
+	// the id of this object, stays the same as long as the object exists (only with protocol version 2, otherwise -1)
+	int id;
 	// health points this object has
 	int hp;
 	// type of the object (can be resolved using gameWorld.getGameObjectType(int))
@@ -136,8 +142,12 @@ class GameObject {
 	// whether this object exists (if false, the other fields have no meaning)
 	bool present;
 	
-	GameObject(){}
+	GameObject(){
+		id = -1;
+		present = false;
+	}
 	GameObject(int cHp, int cGameObjectType, int cPlayer, int cX, int cY){
+		id = -1;
 		hp = cHp;
 		gameObjectType = cGameObjectType;
 		player = cPlayer;
@@ -194,6 +204,19 @@ class GameWorld {
 	// Whether the list was already written this round
 	bool didWriteActions;
 	
+	// Whether protocol version 2 should be used (set before the first round)
+	bool deltaProtocol;
+	// Whether the server already sends the changes only
+	bool deltaActive;
+	// All GameObjects by their id (only with protocol version 2)
+	map<int, GameObject> gameObjectsById;
+	
+	GameWorld(){
+		deltaProtocol = false;
+		deltaActive = false;
+		didWriteActions = false;
+	}
+	
 	// Add the given action to the list of performed actions
 	void addActionToQueue(Action action){
 		didWriteActions = false;
@@ -269,14 +292,18 @@ class GameWorld {
 		}
 		
 		gameObjects.clear();
-		cin >> gameObjectCount;
-		
-		for(int i = 0; i < gameObjectCount; i++){
-			GameObject gameObject;
-			gameObject.readGameObject();
+		if(deltaActive){
+			readChanges();
+		} else {
+			cin >> gameObjectCount;
 			
-			gameObjects.push_back(gameObject);
-			worldMap[gameObject.x][gameObject.y] = gameObject;
+			for(int i = 0; i < gameObjectCount; i++){
+				GameObject gameObject;
+				gameObject.readGameObject();
+				
+				gameObjects.push_back(gameObject);
+				worldMap[gameObject.x][gameObject.y] = gameObject;
+			}
 		}
 		
 		actions.clear();
@@ -292,6 +319,37 @@ class GameWorld {
 		didWriteActions = false;
 	}
 	
+	// read the changes of the GameObjects since the last round (protocol version 2)
+	void readChanges(){
+		int changeCount;
+		cin >> changeCount;
+		
+		for(int i = 0; i < changeCount; i++){
+			int changeType, id;
+			cin >> changeType >> id;
+			if(changeType == 0){
+				// created
+				GameObject gameObject;
+				gameObject.readGameObject();
+				gameObject.id = id;
+				gameObjectsById[id] = gameObject;
+			} else if(changeType == 1){
+				// changed
+				GameObject& gameObject = gameObjectsById[id];
+				cin >> gameObject.player >> gameObject.x >> gameObject.y >> gameObject.hp;
+			} else {
+				// removed
+				gameObjectsById.erase(id);
+			}
+		}
+		
+		for(map<int, GameObject>::iterator it = gameObjectsById.begin(); it != gameObjectsById.end(); ++it){
+			gameObjects.push_back(it->second);
+			worldMap[it->second.x][it->second.y] = it->second;
+		}
+		gameObjectCount = gameObjects.size();
+	}
+	
 	// Send the actions performed this round to the server
 	void writeActions(){
 		if(didWriteActions){
@@ -299,6 +357,12 @@ class GameWorld {
 		}
 		didWriteActions = true;
 		
+		if(deltaProtocol && !deltaActive){
+			// choose the protocol version with the first answer, it is used from the next round on
+			cout << "protocol 2\n";
+			deltaActive = true;
+		}
+		
 		cout << actionQueue.size() << "\n";
 		
 		for(int i = 0; i < actionQueue.size(); i++){
@@ -350,16 +414,30 @@ class GameWorld {
 // This method is called for each round (to be implemented by the UAI)
 void play(GameWorld&);
 
-// Main Method for the interface. Start the connection to the server and handle the rounds
-void startGame(){
+// Main Method for the interface. Start the connection to the server and handle the rounds.
+// If deltaProtocol is true, only the changes of the GameObjects are received each round
+void startGame(bool deltaProtocol = false){
 	GameWorld gameWorld;
+	gameWorld.deltaProtocol = deltaProtocol;
 	gameWorld.fillGameObjectTypes();
 	gameWorld.readStartup();
 	
 	while(true){
+		cin >> ws;
 		if(cin.eof()){
 			break;
 		}
+		if(cin.peek() == '+'){
+			// the server starts a new game with this process (only if the command starts with ":pooled ")
+			string newGame;
+			cin >> newGame;
+			cout << newGame << "\n" << flush;
+			gameWorld = GameWorld();
+			gameWorld.deltaProtocol = deltaProtocol;
+			gameWorld.fillGameObjectTypes();
+			gameWorld.readStartup();
+			continue;
+		}
 		gameWorld.readRound();
 		play(gameWorld);
 		gameWorld.writeActions();
@@ -0,0 +1,469 @@
+package com.smeanox.games.sg002.log;
+
+import com.smeanox.games.sg002.data.Point;
+import com.smeanox.games.sg002.world.Rules;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+/**
+ * Read a game log in the binary replay format written by {@link BinaryReplayWriter}. The rounds are read
+ * one after another with {@link #nextRound()} and {@link #nextAction()}, {@link #seekRound(int)} uses the
+ * index in the footer to jump to a round. If the footer is missing (e.g. the game was not finished) the
+ * index is built by reading all rounds once.
+ *
+ * @author Benjamin Schmid
+ */
+public class BinaryReplayReader {
+	private RandomAccessFile file;
+	private byte[] buffer;
+	private int bufferPosition;
+	private int bufferSize;
+	private long bufferOffset;
+
+	private int version;
+	private int startMoney;
+	private int mapSizeX;
+	private int mapSizeY;
+	private Rules rules;
+	private String[] playerNames;
+	private Point[] goldPos;
+	private Point[] startPos;
+
+	private long[] roundOffsets;
+	private int roundCount;
+	private long roundsEnd;
+
+	private int nextRound;
+	private int roundPlayer;
+	private int roundActionCount;
+	private int readActions;
+	private boolean roundHasChecksum;
+	private long roundChecksum;
+
+	private int actionType;
+	private int startX, startY, endX, endY;
+	private int produceType;
+
+	/**
+	 * Whether the given file starts with the magic bytes of the binary replay format
+	 *
+	 * @param file the file
+	 * @return true if it is a binary replay
+	 * @throws IOException
+	 */
+	public static boolean isBinaryReplay(File file) throws IOException {
+		InputStream in = new FileInputStream(file);
+		try {
+			byte[] magic = new byte[BinaryReplayWriter.MAGIC.length];
+			int read = 0;
+			while (read < magic.length) {
+				int count = in.read(magic, read, magic.length - read);
+				if (count < 0) {
+					return false;
+				}
+				read += count;
+			}
+			return Arrays.equals(magic, BinaryReplayWriter.MAGIC);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Open the given file and read the header and the index
+	 *
+	 * @param replayFile the file
+	 * @throws IOException if the file could not be read or is not a binary replay
+	 */
+	public BinaryReplayReader(File replayFile) throws IOException {
+		file = new RandomAccessFile(replayFile, "r");
+		buffer = new byte[8192];
+		try {
+			readHeader();
+			readIndex();
+		} catch (IOException e) {
+			file.close();
+			throw e;
+		}
+	}
+
+	private void readHeader() throws IOException {
+		seek(0);
+		byte[] magic = new byte[BinaryReplayWriter.MAGIC.length];
+		readBytes(magic);
+		if (!Arrays.equals(magic, BinaryReplayWriter.MAGIC)) {
+			throw new IOException("not a binary replay");
+		}
+		version = readByte();
+		if (version < 1 || version > BinaryReplayWriter.VERSION) {
+			throw new IOException("unsupported version of binary replay: " + version);
+		}
+		int playerCount = readInt();
+		startMoney = readInt();
+		mapSizeX = readInt();
+		mapSizeY = readInt();
+		int goldCount = readInt();
+		int flags = readInt();
+		int startGameObjectMinDistance = readInt();
+		long seed = readFixedLong();
+		rules = new Rules(seed, (flags & BinaryReplayWriter.FLAG_WALK_DIAGONAL) != 0,
+				(flags & BinaryReplayWriter.FLAG_MULTIPLE_ACTIONS) != 0, startGameObjectMinDistance);
+		playerNames = new String[playerCount];
+		for (int i = 0; i < playerCount; i++) {
+			byte[] name = new byte[readInt()];
+			readBytes(name);
+			playerNames[i] = new String(name, "UTF-8");
+		}
+		goldPos = new Point[goldCount];
+		for (int i = 0; i < goldCount; i++) {
+			goldPos[i] = new Point(readInt(), readInt());
+		}
+		startPos = new Point[playerCount];
+		for (int i = 0; i < playerCount; i++) {
+			startPos[i] = new Point(readInt(), readInt());
+		}
+	}
+
+	private void readIndex() throws IOException {
+		long firstRound = getPosition();
+		long length = file.length();
+		int footerSize = 8 + BinaryReplayWriter.INDEX_MAGIC.length;
+		if (length - firstRound >= footerSize) {
+			seek(length - footerSize);
+			long footerOffset = readFixedLong();
+			byte[] magic = new byte[BinaryReplayWriter.INDEX_MAGIC.length];
+			readBytes(magic);
+			if (Arrays.equals(magic, BinaryReplayWriter.INDEX_MAGIC)
+					&& footerOffset >= firstRound && footerOffset < length - footerSize) {
+				seek(footerOffset);
+				roundCount = readInt();
+				roundOffsets = new long[Math.max(roundCount, 1)];
+				long offset = 0;
+				for (int i = 0; i < roundCount; i++) {
+					offset += readLong();
+					roundOffsets[i] = offset;
+				}
+				roundsEnd = footerOffset;
+				seekRound(0);
+				return;
+			}
+		}
+
+		// no footer, find the rounds by reading all of them
+		roundsEnd = length;
+		roundOffsets = new long[256];
+		roundCount = 0;
+		seek(firstRound);
+		nextRound = 0;
+		try {
+			while (getPosition() < roundsEnd) {
+				long offset = getPosition();
+				skipRound();
+				if (roundCount == roundOffsets.length) {
+					roundOffsets = Arrays.copyOf(roundOffsets, roundOffsets.length * 2);
+				}
+				roundOffsets[roundCount++] = offset;
+			}
+		} catch (EOFException ignored) {
+			// the last round was not written completely
+		}
+		seekRound(0);
+	}
+
+	private void skipRound() throws IOException {
+		readInt();
+		int actionCount = readInt();
+		boolean hasChecksum = false;
+		if (version >= 2) {
+			hasChecksum = (actionCount & 1) != 0;
+			actionCount >>>= 1;
+		}
+		for (int i = 0; i < actionCount; i++) {
+			if (readAction() == BinaryReplayWriter.PRODUCE_ID) {
+				readInt();
+			}
+		}
+		if (hasChecksum) {
+			readFixedLong();
+		}
+	}
+
+	public int getPlayerCount() {
+		return playerNames.length;
+	}
+
+	public int getStartMoney() {
+		return startMoney;
+	}
+
+	public int getMapSizeX() {
+		return mapSizeX;
+	}
+
+	public int getMapSizeY() {
+		return mapSizeY;
+	}
+
+	/**
+	 * Return the rules of the game stored in the header
+	 *
+	 * @return the rules
+	 */
+	public Rules getRules() {
+		return rules;
+	}
+
+	public String[] getPlayerNames() {
+		return playerNames.clone();
+	}
+
+	public Point[] getGoldPos() {
+		return goldPos.clone();
+	}
+
+	public Point[] getStartPos() {
+		return startPos.clone();
+	}
+
+	/**
+	 * Return the number of rounds in the replay
+	 *
+	 * @return the number of rounds
+	 */
+	public int getRoundCount() {
+		return roundCount;
+	}
+
+	/**
+	 * Continue reading at the given round, the next call to {@link #nextRound()} reads it
+	 *
+	 * @param round the index of the round
+	 * @throws IOException
+	 */
+	public void seekRound(int round) throws IOException {
+		if (round < 0 || round > roundCount) {
+			throw new IndexOutOfBoundsException("round " + round + " does not exist");
+		}
+		seek(round < roundCount ? roundOffsets[round] : roundsEnd);
+		nextRound = round;
+		roundActionCount = 0;
+		readActions = 0;
+	}
+
+	/**
+	 * Read the start of the next round, the actions of the last round that were not read are skipped
+	 *
+	 * @return false if there are no more rounds
+	 * @throws IOException
+	 */
+	public boolean nextRound() throws IOException {
+		while (readActions < roundActionCount) {
+			nextAction();
+		}
+		if (nextRound >= roundCount) {
+			return false;
+		}
+		if (getPosition() != roundOffsets[nextRound]) {
+			seek(roundOffsets[nextRound]);
+		}
+		nextRound++;
+		roundPlayer = readInt();
+		roundActionCount = readInt();
+		roundHasChecksum = false;
+		if (version >= 2) {
+			roundHasChecksum = (roundActionCount & 1) != 0;
+			roundActionCount >>>= 1;
+		}
+		readActions = 0;
+		readChecksum();
+		return true;
+	}
+
+	/**
+	 * Return the index of the round read last
+	 *
+	 * @return the index
+	 */
+	public int getRound() {
+		return nextRound - 1;
+	}
+
+	/**
+	 * Return the active player of the current round
+	 *
+	 * @return the id of the player
+	 */
+	public int getRoundPlayer() {
+		return roundPlayer;
+	}
+
+	/**
+	 * Return the number of actions of the current round
+	 *
+	 * @return the number of actions
+	 */
+	public int getActionCount() {
+		return roundActionCount;
+	}
+
+	/**
+	 * Read the next action of the current round, afterwards its values can be read with the getters
+	 *
+	 * @return false if all actions of the round were read
+	 * @throws IOException
+	 */
+	public boolean nextAction() throws IOException {
+		if (readActions >= roundActionCount) {
+			return false;
+		}
+		readActions++;
+		actionType = readAction();
+		produceType = actionType == BinaryReplayWriter.PRODUCE_ID ? readInt() : -1;
+		readChecksum();
+		return true;
+	}
+
+	/**
+	 * Read the checksum of the current round if all its actions were read
+	 *
+	 * @throws IOException
+	 */
+	private void readChecksum() throws IOException {
+		if (readActions == roundActionCount && roundHasChecksum) {
+			roundChecksum = readFixedLong();
+		}
+	}
+
+	/**
+	 * Whether the current round has a checksum of the GameWorld after the round
+	 *
+	 * @return true if it has a checksum
+	 */
+	public boolean hasChecksum() {
+		return roundHasChecksum;
+	}
+
+	/**
+	 * Return the checksum of the GameWorld after the current round, only available after all actions
+	 * of the round were read
+	 *
+	 * @return the checksum
+	 */
+	public long getChecksum() {
+		return roundChecksum;
+	}
+
+	private int readAction() throws IOException {
+		int type = readInt();
+		startX = readInt();
+		startY = readInt();
+		endX = readInt();
+		endY = readInt();
+		return type;
+	}
+
+	public int getActionType() {
+		return actionType;
+	}
+
+	public int getStartX() {
+		return startX;
+	}
+
+	public int getStartY() {
+		return startY;
+	}
+
+	public int getEndX() {
+		return endX;
+	}
+
+	public int getEndY() {
+		return endY;
+	}
+
+	/**
+	 * Return the external id of the produced GameObjectType
+	 *
+	 * @return the id or -1 if the action is not a produce action
+	 */
+	public int getProduceType() {
+		return produceType;
+	}
+
+	/**
+	 * Close the file
+	 *
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		file.close();
+	}
+
+	private long getPosition() {
+		return bufferOffset + bufferPosition;
+	}
+
+	private void seek(long position) throws IOException {
+		if (position >= bufferOffset && position <= bufferOffset + bufferSize) {
+			bufferPosition = (int) (position - bufferOffset);
+			return;
+		}
+		file.seek(position);
+		bufferOffset = position;
+		bufferPosition = 0;
+		bufferSize = 0;
+	}
+
+	private int readByte() throws IOException {
+		if (bufferPosition == bufferSize) {
+			bufferOffset += bufferSize;
+			bufferPosition = 0;
+			bufferSize = Math.max(file.read(buffer), 0);
+			if (bufferSize == 0) {
+				throw new EOFException();
+			}
+		}
+		return buffer[bufferPosition++] & 0xff;
+	}
+
+	private void readBytes(byte[] bytes) throws IOException {
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) readByte();
+		}
+	}
+
+	private long readFixedLong() throws IOException {
+		long value = 0;
+		for (int i = 0; i < 8; i++) {
+			value = (value << 8) | readByte();
+		}
+		return value;
+	}
+
+	private long readLong() throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = readByte();
+			value |= (long) (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("invalid varint");
+	}
+
+	private int readInt() throws IOException {
+		long value = readLong();
+		if (value > Integer.MAX_VALUE) {
+			throw new IOException("value too big: " + value);
+		}
+		return (int) value;
+	}
+}
@@ -0,0 +1,239 @@
+package com.smeanox.games.sg002.log;
+
+import com.smeanox.games.sg002.data.Point;
+import com.smeanox.games.sg002.util.Consts;
+import com.smeanox.games.sg002.world.Rules;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Write a game log in the binary replay format. It contains the same information as the text game log
+ * but all numbers are written as varints (7 bits per byte, lowest group first, the highest bit is set
+ * if another byte follows):
+ * <ul>
+ * <li>header: the magic bytes {@code SG2R}, the version byte, playerCount, startMoney, mapSizeX, mapSizeY,
+ * goldCount, the rules (flags with walkDiagonal as bit 0 and multipleActionsPerObject as bit 1,
+ * startGameObjectMinDistance and the seed as 8 bytes), the names of the players (length and UTF-8 bytes),
+ * the gold positions and the start positions</li>
+ * <li>rounds: the active player, the number of actions shifted left by one with the lowest bit set if the
+ * round has a checksum, the actions (type, startX, startY, endX, endY and for produce the id of the
+ * GameObjectType) and the checksum of the GameWorld after the round as 8 bytes</li>
+ * <li>footer: the number of rounds, the offset of each round relative to the previous one (the first
+ * relative to the start of the file), the offset of the footer as 8 bytes and the magic bytes {@code SG2I}</li>
+ * </ul>
+ *
+ * @author Benjamin Schmid
+ */
+public class BinaryReplayWriter {
+	static final byte[] MAGIC = {'S', 'G', '2', 'R'};
+	static final byte[] INDEX_MAGIC = {'S', 'G', '2', 'I'};
+	static final int VERSION = 2;
+	static final int PRODUCE_ID = Integer.parseInt(Consts.PRODUCE_ID);
+	static final int FLAG_WALK_DIAGONAL = 1;
+	static final int FLAG_MULTIPLE_ACTIONS = 2;
+
+	private OutputStream out;
+	private long position;
+
+	private long[] roundOffsets;
+	private int roundCount;
+
+	private boolean roundStarted;
+	private int roundPlayer;
+	private int roundActionCount;
+	private byte[] roundActions;
+	private int roundActionsSize;
+	private boolean roundHasChecksum;
+	private long roundChecksum;
+
+	private byte[] varintBuffer;
+
+	/**
+	 * Create a new writer
+	 *
+	 * @param out the stream to write to, should be buffered
+	 */
+	public BinaryReplayWriter(OutputStream out) {
+		this.out = out;
+		position = 0;
+		roundOffsets = new long[256];
+		roundCount = 0;
+		roundStarted = false;
+		roundActions = new byte[256];
+		varintBuffer = new byte[10];
+	}
+
+	/**
+	 * Write the header
+	 *
+	 * @param rules       the rules of the game
+	 * @param startMoney  the money each player starts with
+	 * @param mapSizeX    the size of the map
+	 * @param mapSizeY    the size of the map
+	 * @param playerNames the names of the players
+	 * @param goldPos     the positions of the gold
+	 * @param startPos    the start positions of the players
+	 * @throws IOException
+	 */
+	public void writeHeader(Rules rules, int startMoney, int mapSizeX, int mapSizeY, String[] playerNames,
+							Point[] goldPos, Point[] startPos) throws IOException {
+		write(MAGIC, 0, MAGIC.length);
+		write(new byte[]{VERSION}, 0, 1);
+		writeVarint(playerNames.length);
+		writeVarint(startMoney);
+		writeVarint(mapSizeX);
+		writeVarint(mapSizeY);
+		writeVarint(goldPos.length);
+		writeVarint((rules.isWalkDiagonal() ? FLAG_WALK_DIAGONAL : 0)
+				| (rules.isMultipleActionsPerObject() ? FLAG_MULTIPLE_ACTIONS : 0));
+		writeVarint(rules.getStartGameObjectMinDistance());
+		writeLong(rules.getSeed());
+		for (String name : playerNames) {
+			byte[] bytes = name.getBytes("UTF-8");
+			writeVarint(bytes.length);
+			write(bytes, 0, bytes.length);
+		}
+		for (Point point : goldPos) {
+			writeVarint(point.x);
+			writeVarint(point.y);
+		}
+		for (Point point : startPos) {
+			writeVarint(point.x);
+			writeVarint(point.y);
+		}
+	}
+
+	/**
+	 * Start a new round, the actions of the last round are written
+	 *
+	 * @param player the id of the active player
+	 * @throws IOException
+	 */
+	public void startRound(int player) throws IOException {
+		finishRound();
+		roundStarted = true;
+		roundPlayer = player;
+		roundActionCount = 0;
+		roundActionsSize = 0;
+		roundHasChecksum = false;
+	}
+
+	/**
+	 * Add an action to the current round
+	 *
+	 * @param type        the id of the action type
+	 * @param startX      the start position
+	 * @param startY      the start position
+	 * @param endX        the end position
+	 * @param endY        the end position
+	 * @param produceType the external id of the produced GameObjectType, only used for produce actions
+	 */
+	public void writeAction(int type, int startX, int startY, int endX, int endY, int produceType) {
+		if (!roundStarted) {
+			throw new IllegalStateException("no round was started");
+		}
+		addActionVarint(type);
+		addActionVarint(startX);
+		addActionVarint(startY);
+		addActionVarint(endX);
+		addActionVarint(endY);
+		if (type == PRODUCE_ID) {
+			addActionVarint(produceType);
+		}
+		roundActionCount++;
+	}
+
+	/**
+	 * Set the checksum of the GameWorld after the current round
+	 *
+	 * @param checksum the checksum
+	 */
+	public void writeChecksum(long checksum) {
+		if (!roundStarted) {
+			throw new IllegalStateException("no round was started");
+		}
+		roundHasChecksum = true;
+		roundChecksum = checksum;
+	}
+
+	/**
+	 * Write the last round and the footer and close the stream
+	 *
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		finishRound();
+		long footerOffset = position;
+		writeVarint(roundCount);
+		long lastOffset = 0;
+		for (int i = 0; i < roundCount; i++) {
+			writeVarint(roundOffsets[i] - lastOffset);
+			lastOffset = roundOffsets[i];
+		}
+		writeLong(footerOffset);
+		write(INDEX_MAGIC, 0, INDEX_MAGIC.length);
+		out.close();
+	}
+
+	private void finishRound() throws IOException {
+		if (!roundStarted) {
+			return;
+		}
+		if (roundCount == roundOffsets.length) {
+			roundOffsets = Arrays.copyOf(roundOffsets, roundOffsets.length * 2);
+		}
+		roundOffsets[roundCount++] = position;
+		writeVarint(roundPlayer);
+		writeVarint((long) roundActionCount << 1 | (roundHasChecksum ? 1 : 0));
+		write(roundActions, 0, roundActionsSize);
+		if (roundHasChecksum) {
+			writeLong(roundChecksum);
+		}
+		roundStarted = false;
+	}
+
+	private void addActionVarint(long value) {
+		if (roundActionsSize + 10 > roundActions.length) {
+			roundActions = Arrays.copyOf(roundActions, roundActions.length * 2);
+		}
+		roundActionsSize = encodeVarint(value, roundActions, roundActionsSize);
+	}
+
+	private void writeVarint(long value) throws IOException {
+		write(varintBuffer, 0, encodeVarint(value, varintBuffer, 0));
+	}
+
+	private void writeLong(long value) throws IOException {
+		for (int i = 0; i < 8; i++) {
+			varintBuffer[i] = (byte) (value >>> (56 - 8 * i));
+		}
+		write(varintBuffer, 0, 8);
+	}
+
+	private void write(byte[] bytes, int offset, int length) throws IOException {
+		out.write(bytes, offset, length);
+		position += length;
+	}
+
+	/**
+	 * Encode a varint into the given buffer
+	 *
+	 * @param value  the value, may not be negative
+	 * @param buffer the buffer
+	 * @param offset the position to write at
+	 * @return the position after the varint
+	 */
+	static int encodeVarint(long value, byte[] buffer, int offset) {
+		if (value < 0) {
+			throw new IllegalArgumentException("negative values can not be written: " + value);
+		}
+		while (value >= 0x80) {
+			buffer[offset++] = (byte) (value | 0x80);
+			value >>>= 7;
+		}
+		buffer[offset++] = (byte) value;
+		return offset;
+	}
+}
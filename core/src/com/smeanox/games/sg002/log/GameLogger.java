@@ -1,23 +1,48 @@
 package com.smeanox.games.sg002.log;
 
+import com.smeanox.games.sg002.util.Consts;
+
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Log the game for replay and log the behaviour of AIs
+ * <br>
+ * In the asynchronous mode the lines are added to a {@link LogRingBuffer} and written in batches by a
+ * background thread, so logging does not block the game. Lines of stderr of external AIs are dropped if
+ * the buffer is more than half full, all other lines wait for free space.
  *
  * @author Benjamin Schmid
  */
 public class GameLogger {
+	private static final int KIND_GAME = 0;
+	private static final int KIND_TECH = 1;
+	private static final int KIND_STDERR = 2;
+	private static final int KIND_BEHAVIOUR = 3;
 
-	private PrintWriter gameLogWriter, behaviourLogWriter;
+	private volatile PrintWriter gameLogWriter, behaviourLogWriter;
 	private String logFolder = "";
 	private String gameLogPath;
 	private String behaviourLogPath;
+	private BinaryReplayWriter binaryGameLog;
+	private String binaryGameLogPath;
 	private boolean printStdOut;
 	private boolean printStdErr;
 
+	private LogRingBuffer buffer;
+	private AsyncWriter asyncWriter;
+	private AtomicLong droppedLines;
+	// number of threads currently adding a line to the buffer
+	private AtomicInteger producers;
+
 	public GameLogger(){
 		printStdOut = true;
 		printStdErr = true;
@@ -30,6 +55,7 @@ public class GameLogger {
 	public static GameLogger createDummyLogger(){
 		GameLogger logger = new GameLogger();
 		logger.setGameLogPath(null);
+		logger.setBinaryGameLogPath(null);
 		logger.setBehaviourLogPath(null);
 		logger.setPrintStdOut(false);
 		logger.setPrintStdErr(false);
@@ -72,6 +98,7 @@ public class GameLogger {
 	}
 
 	public void setGameLogPath(String gameLogPath) {
+		flush();
 		this.gameLogPath = gameLogPath;
 		if(gameLogWriter != null){
 			gameLogWriter.close();
@@ -87,11 +114,51 @@ public class GameLogger {
 		}
 	}
 
+	public String getBinaryGameLogPath() {
+		return binaryGameLogPath;
+	}
+
+	/**
+	 * Set the file to write the game log in the binary replay format to, null to write no binary game log
+	 *
+	 * @param binaryGameLogPath the path relative to the log folder
+	 */
+	public void setBinaryGameLogPath(String binaryGameLogPath) {
+		this.binaryGameLogPath = binaryGameLogPath;
+		if(binaryGameLog != null){
+			try {
+				binaryGameLog.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		if(binaryGameLogPath == null){
+			binaryGameLog = null;
+		} else {
+			try {
+				binaryGameLog = new BinaryReplayWriter(new BufferedOutputStream(new FileOutputStream(logFolder + binaryGameLogPath)));
+			} catch (FileNotFoundException e) {
+				binaryGameLog = null;
+			}
+		}
+	}
+
+	/**
+	 * Return the writer for the binary game log. It is written directly by the game and not by the
+	 * background thread of the asynchronous mode.
+	 *
+	 * @return the writer or null if no binary game log is written
+	 */
+	public BinaryReplayWriter getBinaryGameLog() {
+		return binaryGameLog;
+	}
+
 	public String getBehaviourLogPath() {
 		return behaviourLogPath;
 	}
 
 	public void setBehaviourLogPath(String behaviourLogPath) {
+		flush();
 		this.behaviourLogPath = behaviourLogPath;
 		if(behaviourLogWriter != null){
 			behaviourLogWriter.close();
@@ -107,19 +174,111 @@ public class GameLogger {
 		}
 	}
 
+	public boolean isAsync() {
+		return asyncWriter != null;
+	}
+
+	/**
+	 * Start writing the logs asynchronously. Can not be undone, {@link #close()} has to be called
+	 * to stop the background thread.
+	 */
+	public synchronized void startAsync() {
+		if (asyncWriter != null) {
+			return;
+		}
+		buffer = new LogRingBuffer(Consts.LOG_BUFFER_SIZE);
+		droppedLines = new AtomicLong(0);
+		producers = new AtomicInteger(0);
+		asyncWriter = new AsyncWriter();
+		asyncWriter.start();
+	}
+
 	/**
-	 * Close all files
+	 * Wait until all lines logged so far are written and flushed. Does nothing in the synchronous mode.
+	 */
+	public void flush() {
+		if (asyncWriter == null) {
+			return;
+		}
+		long target = buffer.getTail();
+		while (asyncWriter.flushed < target && asyncWriter.isAlive()) {
+			LockSupport.unpark(asyncWriter);
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+		}
+	}
+
+	/**
+	 * Close all files and stop the background thread after all lines were written
 	 */
 	public void close(){
+		if (asyncWriter != null) {
+			flush();
+			asyncWriter.closing = true;
+			LockSupport.unpark(asyncWriter);
+			try {
+				asyncWriter.join();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+			if (droppedLines.get() > 0 && printStdErr) {
+				System.err.println("[TECH] dropped " + droppedLines.get() + " lines of stderr of external AIs");
+			}
+		}
 		setGameLogPath(null);
+		setBinaryGameLogPath(null);
 		setBehaviourLogPath(null);
 	}
 
+	/**
+	 * Add a line to the buffer, waits if the buffer is full. The background thread does not stop while a
+	 * line is added, so no line gets lost if {@link #close()} is called at the same time.
+	 *
+	 * @param kind the kind of the line
+	 * @param line the line
+	 * @param drop whether the line should be dropped instead of waiting if the buffer is more than half full
+	 * @return false if the logger is closing and the line has to be written directly, the lines in the
+	 * buffer were written before
+	 */
+	private boolean enqueue(int kind, String line, boolean drop) {
+		producers.incrementAndGet();
+		try {
+			while (!asyncWriter.closing && asyncWriter.isAlive()) {
+				if (drop && buffer.size() > buffer.capacity() / 2) {
+					droppedLines.incrementAndGet();
+					return true;
+				}
+				if (buffer.offer(kind, line)) {
+					if (asyncWriter.sleeping) {
+						LockSupport.unpark(asyncWriter);
+					}
+					return true;
+				}
+				LockSupport.unpark(asyncWriter);
+				Thread.yield();
+			}
+		} finally {
+			producers.decrementAndGet();
+		}
+		// keep the order of the lines
+		while (asyncWriter.isAlive()) {
+			LockSupport.unpark(asyncWriter);
+			Thread.yield();
+		}
+		return false;
+	}
+
 	/**
 	 * Log something for game replay
 	 * @param s the string to log
 	 */
-	public synchronized void game(String s){
+	public void game(String s){
+		if(isAsync() && (printStdOut || gameLogWriter != null) && enqueue(KIND_GAME, s, false)){
+			return;
+		}
+		gameSync(s);
+	}
+
+	private synchronized void gameSync(String s){
 		if(printStdOut){
 			System.out.println(s);
 		}
@@ -132,7 +291,14 @@ public class GameLogger {
 	 * Log something related to the technical side of simulating the game
 	 * @param s the string to log
 	 */
-	public synchronized void tech(String s){
+	public void tech(String s){
+		if(isAsync() && printStdErr && enqueue(KIND_TECH, s, false)){
+			return;
+		}
+		techSync(s);
+	}
+
+	private synchronized void techSync(String s){
 		if(printStdErr){
 			System.err.println("[TECH] " + s);
 		}
@@ -143,7 +309,15 @@ public class GameLogger {
 	 * @param id the id of the AI
 	 * @param s the string to log
 	 */
-	public synchronized void progStdErr(String id, String s){
+	public void progStdErr(String id, String s){
+		// a noisy AI must not slow down the game
+		if(isAsync() && printStdErr && enqueue(KIND_STDERR, "[" + id + "] " + s, true)){
+			return;
+		}
+		progStdErrSync(id, s);
+	}
+
+	private synchronized void progStdErrSync(String id, String s){
 		if(printStdErr){
 			System.err.println("[STDERR] [" + id + "] " + s);
 		}
@@ -154,7 +328,15 @@ public class GameLogger {
 	 * @param id the id of the AI
 	 * @param s the string to log
 	 */
-	public synchronized void progBehaviour(String id, String s){
+	public void progBehaviour(String id, String s){
+		if(isAsync() && (printStdErr || behaviourLogWriter != null)
+				&& enqueue(KIND_BEHAVIOUR, "[" + id + "] " + s, false)){
+			return;
+		}
+		progBehaviourSync(id, s);
+	}
+
+	private synchronized void progBehaviourSync(String id, String s){
 		if(printStdErr){
 			System.err.println("[BEHAVIOUR] [" + id + "] " + s);
 		}
@@ -162,4 +344,104 @@ public class GameLogger {
 			behaviourLogWriter.println("[" + id + "] "  + s);
 		}
 	}
+
+	/**
+	 * Thread that writes the lines of the buffer in batches
+	 */
+	private class AsyncWriter extends Thread {
+		private volatile boolean closing = false;
+		private volatile boolean sleeping = false;
+		private volatile long flushed = 0;
+
+		private StringBuilder stdOut = new StringBuilder();
+		private StringBuilder stdErr = new StringBuilder();
+
+		public AsyncWriter() {
+			super("game-logger");
+			setDaemon(true);
+		}
+
+		@Override
+		public void run() {
+			while (true) {
+				boolean wasClosing = closing;
+				if (!writeBatch()) {
+					if (wasClosing) {
+						// new lines are written directly now, wait for the ones that are still being added
+						if (producers.get() == 0 && buffer.getHead() == buffer.getTail()) {
+							break;
+						}
+						Thread.yield();
+						continue;
+					}
+					sleeping = true;
+					if (buffer.getHead() == buffer.getTail() && !closing) {
+						LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(Consts.LOG_WRITER_IDLE_WAIT));
+					}
+					sleeping = false;
+				}
+			}
+		}
+
+		/**
+		 * Write all lines currently in the buffer and flush the sinks
+		 *
+		 * @return false if there were no lines
+		 */
+		private boolean writeBatch() {
+			int count = 0;
+			PrintWriter gameLog = gameLogWriter;
+			PrintWriter behaviourLog = behaviourLogWriter;
+			while (count < Consts.LOG_BUFFER_SIZE && buffer.poll()) {
+				String line = buffer.getPolledLine();
+				switch (buffer.getPolledKind()) {
+					case KIND_GAME:
+						if (printStdOut) {
+							stdOut.append(line).append('\n');
+						}
+						if (gameLog != null) {
+							gameLog.println(line);
+						}
+						break;
+					case KIND_TECH:
+						stdErr.append("[TECH] ").append(line).append('\n');
+						break;
+					case KIND_STDERR:
+						stdErr.append("[STDERR] ").append(line).append('\n');
+						break;
+					case KIND_BEHAVIOUR:
+						if (printStdErr) {
+							stdErr.append("[BEHAVIOUR] ").append(line).append('\n');
+						}
+						if (behaviourLog != null) {
+							behaviourLog.println(line);
+						}
+						break;
+				}
+				count++;
+			}
+			if (count == 0) {
+				return false;
+			}
+
+			if (stdOut.length() > 0) {
+				System.out.print(stdOut);
+				System.out.flush();
+				stdOut.setLength(0);
+			}
+			if (stdErr.length() > 0) {
+				System.err.print(stdErr);
+				System.err.flush();
+				stdErr.setLength(0);
+			}
+			if (gameLog != null) {
+				gameLog.flush();
+			}
+			if (behaviourLog != null) {
+				behaviourLog.flush();
+			}
+			flushed = buffer.getHead();
+			return true;
+		}
+	}
 }
@@ -0,0 +1,136 @@
+package com.smeanox.games.sg002.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded queue of log lines without locks. Any number of threads may add lines, only one thread
+ * may take them out again.
+ * <br>
+ * Every slot has a sequence number telling whether it is free for the producer at a given position or
+ * filled for the consumer, producers claim a position with a compare and set on the tail.
+ *
+ * @author Benjamin Schmid
+ */
+class LogRingBuffer {
+	private final int[] kinds;
+	private final String[] lines;
+	private final AtomicLongArray sequences;
+	private final int mask;
+	private final AtomicLong tail;
+	private volatile long head;
+
+	// only used by the consumer
+	private int polledKind;
+	private String polledLine;
+
+	/**
+	 * Create a new buffer
+	 *
+	 * @param capacity the number of lines, has to be a power of two
+	 */
+	LogRingBuffer(int capacity) {
+		if (Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("the capacity has to be a power of two");
+		}
+		kinds = new int[capacity];
+		lines = new String[capacity];
+		sequences = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++) {
+			sequences.set(i, i);
+		}
+		mask = capacity - 1;
+		tail = new AtomicLong(0);
+		head = 0;
+	}
+
+	/**
+	 * Add a line
+	 *
+	 * @param kind the kind of the line
+	 * @param line the line
+	 * @return false if the buffer is full
+	 */
+	boolean offer(int kind, String line) {
+		long position = tail.get();
+		while (true) {
+			int index = (int) position & mask;
+			long difference = sequences.get(index) - position;
+			if (difference == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					kinds[index] = kind;
+					lines[index] = line;
+					// publish the slot to the consumer
+					sequences.set(index, position + 1);
+					return true;
+				}
+				position = tail.get();
+			} else if (difference < 0) {
+				return false;
+			} else {
+				// another producer claimed this position
+				position = tail.get();
+			}
+		}
+	}
+
+	/**
+	 * Take the next line out of the buffer, afterwards it can be read with {@link #getPolledKind()}
+	 * and {@link #getPolledLine()}
+	 *
+	 * @return false if the buffer is empty
+	 */
+	boolean poll() {
+		long position = head;
+		int index = (int) position & mask;
+		if (sequences.get(index) != position + 1) {
+			return false;
+		}
+		polledKind = kinds[index];
+		polledLine = lines[index];
+		lines[index] = null;
+		// free the slot for the producer one round later
+		sequences.set(index, position + mask + 1);
+		head = position + 1;
+		return true;
+	}
+
+	int getPolledKind() {
+		return polledKind;
+	}
+
+	String getPolledLine() {
+		return polledLine;
+	}
+
+	/**
+	 * Return the position after the last claimed line
+	 *
+	 * @return the position
+	 */
+	long getTail() {
+		return tail.get();
+	}
+
+	/**
+	 * Return the position of the next line to poll
+	 *
+	 * @return the position
+	 */
+	long getHead() {
+		return head;
+	}
+
+	/**
+	 * Return the approximate number of lines in the buffer
+	 *
+	 * @return the number of lines
+	 */
+	int size() {
+		return (int) (tail.get() - head);
+	}
+
+	int capacity() {
+		return mask + 1;
+	}
+}
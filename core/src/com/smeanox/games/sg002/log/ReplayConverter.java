@@ -0,0 +1,174 @@
+package com.smeanox.games.sg002.log;
+
+import com.smeanox.games.sg002.data.Point;
+import com.smeanox.games.sg002.util.Consts;
+import com.smeanox.games.sg002.world.Rules;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.math.BigInteger;
+
+/**
+ * Convert game logs between the text format and the binary replay format. The text format does not
+ * contain the rules of the game, converting it to binary uses {@link Rules#DEFAULT}.
+ *
+ * @author Benjamin Schmid
+ */
+public class ReplayConverter {
+	private ReplayConverter() {
+	}
+
+	/**
+	 * Convert the given game log to the other format: a binary replay to text and a text game log to binary
+	 *
+	 * @param in  the game log to convert
+	 * @param out the file to write the converted game log to
+	 * @throws IOException if a file could not be read or written or the game log is invalid
+	 */
+	public static void convert(File in, File out) throws IOException {
+		if (BinaryReplayReader.isBinaryReplay(in)) {
+			binaryToText(in, out);
+		} else {
+			textToBinary(in, out);
+		}
+	}
+
+	/**
+	 * Convert a binary replay to a text game log
+	 *
+	 * @param in  the binary replay
+	 * @param out the text game log
+	 * @throws IOException
+	 */
+	public static void binaryToText(File in, File out) throws IOException {
+		BinaryReplayReader reader = new BinaryReplayReader(in);
+		PrintWriter writer = new PrintWriter(out);
+		try {
+			writer.println(reader.getPlayerCount() + " " + reader.getStartMoney() + " " + reader.getMapSizeX()
+					+ " " + reader.getMapSizeY() + " " + reader.getGoldPos().length);
+			StringBuilder playerNames = new StringBuilder();
+			for (String name : reader.getPlayerNames()) {
+				if (playerNames.length() > 0) {
+					playerNames.append(" ");
+				}
+				playerNames.append(name);
+			}
+			writer.println(playerNames);
+			for (Point point : reader.getGoldPos()) {
+				writer.println(point.x + " " + point.y);
+			}
+			for (Point point : reader.getStartPos()) {
+				writer.println(point.x + " " + point.y);
+			}
+
+			while (reader.nextRound()) {
+				writer.println(Consts.NEXT_ROUND_ID);
+				writer.println(reader.getRoundPlayer());
+				while (reader.nextAction()) {
+					writer.print(reader.getActionType() + " " + reader.getStartX() + " " + reader.getStartY()
+							+ " " + reader.getEndX() + " " + reader.getEndY());
+					if (reader.getProduceType() >= 0) {
+						writer.print(" " + reader.getProduceType());
+					}
+					writer.println();
+				}
+				if (reader.hasChecksum()) {
+					writer.println(Consts.CHECKSUM_ID + " " + Long.toHexString(reader.getChecksum()));
+				}
+			}
+		} finally {
+			writer.close();
+			reader.close();
+		}
+	}
+
+	/**
+	 * Convert a text game log to a binary replay
+	 *
+	 * @param in  the text game log
+	 * @param out the binary replay
+	 * @throws IOException if the text game log is invalid
+	 */
+	public static void textToBinary(File in, File out) throws IOException {
+		BufferedReader reader = new BufferedReader(new FileReader(in));
+		BinaryReplayWriter writer = new BinaryReplayWriter(new BufferedOutputStream(new FileOutputStream(out)));
+		try {
+			int[] config = parseInts(nextLine(reader));
+			int playerCount = config[0];
+			int goldCount = config[4];
+			String[] playerNames = nextLine(reader).split(" ");
+			Point[] goldPos = new Point[goldCount];
+			for (int i = 0; i < goldCount; i++) {
+				int[] parts = parseInts(nextLine(reader));
+				goldPos[i] = new Point(parts[0], parts[1]);
+			}
+			Point[] startPos = new Point[playerCount];
+			for (int i = 0; i < playerCount; i++) {
+				int[] parts = parseInts(nextLine(reader));
+				startPos[i] = new Point(parts[0], parts[1]);
+			}
+			writer.writeHeader(Rules.DEFAULT, config[1], config[2], config[3], playerNames, goldPos, startPos);
+
+			String line;
+			while ((line = nextLineOrNull(reader)) != null) {
+				if (Consts.NEXT_ROUND_ID.equals(line)) {
+					line = nextLineOrNull(reader);
+					if (line != null) {
+						writer.startRound(Integer.parseInt(line));
+					}
+					continue;
+				}
+				if (line.startsWith(Consts.CHECKSUM_ID + " ")) {
+					writer.writeChecksum(new BigInteger(line.substring(Consts.CHECKSUM_ID.length() + 1), 16).longValue());
+					continue;
+				}
+				int[] parts = parseInts(line);
+				writer.writeAction(parts[0], parts[1], parts[2], parts[3], parts[4], parts.length > 5 ? parts[5] : -1);
+			}
+		} catch (NumberFormatException e) {
+			throw new IOException("invalid game log: " + e.getMessage(), e);
+		} catch (IndexOutOfBoundsException e) {
+			throw new IOException("invalid game log: " + e.getMessage(), e);
+		} finally {
+			writer.close();
+			reader.close();
+		}
+	}
+
+	/**
+	 * Read the next line that is not empty, like {@link com.smeanox.games.sg002.util.ConfigFileUtil#readAllLines(File)}
+	 *
+	 * @param reader the reader
+	 * @return the line or null at the end
+	 * @throws IOException
+	 */
+	private static String nextLineOrNull(BufferedReader reader) throws IOException {
+		String line;
+		do {
+			line = reader.readLine();
+		} while (line != null && (line.trim().isEmpty() || line.trim().startsWith("#")));
+		return line;
+	}
+
+	private static String nextLine(BufferedReader reader) throws IOException {
+		String line = nextLineOrNull(reader);
+		if (line == null) {
+			throw new IOException("invalid game log: unexpected end");
+		}
+		return line;
+	}
+
+	private static int[] parseInts(String line) {
+		String[] parts = line.split(" ");
+		int[] values = new int[parts.length];
+		for (int i = 0; i < parts.length; i++) {
+			values[i] = Integer.parseInt(parts[i]);
+		}
+		return values;
+	}
+}
@@ -4,7 +4,9 @@ import com.smeanox.games.sg002.log.GameLogger;
 import com.smeanox.games.sg002.log.TournamentLogger;
 import com.smeanox.games.sg002.player.AIPlayer_BenNo1;
 import com.smeanox.games.sg002.player.ExternalAIPlayer;
+import com.smeanox.games.sg002.player.ExternalProcessPool;
 import com.smeanox.games.sg002.player.Player;
+import com.smeanox.games.sg002.player.ResourceUsage;
 import com.smeanox.games.sg002.util.Consts;
 import com.smeanox.games.sg002.util.ProgramArguments;
 import com.smeanox.games.sg002.world.GameController;
@@ -12,6 +14,11 @@ import com.smeanox.games.sg002.world.Scenario;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * An evaluation consists of only one scenario
@@ -24,6 +31,9 @@ public class Evaluation {
 	private Scenario scenario;
 	private List<String> playerNames;
 	private List<String> playerCommands;
+	private ExternalProcessPool processPool;
+	private RatingScheduler ratings;
+	private List<ResourceUsage> playerResources;
 
 	private boolean played;
 
@@ -67,26 +77,38 @@ public class Evaluation {
 			playerPoints.add(0);
 		}
 
+		playerResources = new ArrayList<ResourceUsage>();
+		for (int i = 0; i < playerNames.size(); i++) {
+			playerResources.add(null);
+		}
+
 		List<Integer> aPlayers = new ArrayList<Integer>();
 		for (int i = 0; i < ProgramArguments.playerCount; i++) {
 			aPlayers.add(i);
 		}
 
-		if (ProgramArguments.evaluation) {
-			do {
-				List<Integer> aGamePlayers = new ArrayList<Integer>(aPlayers);
+		processPool = new ExternalProcessPool(Consts.EXTERNAL_POOL_MAX_GAMES);
+		try {
+			if (ProgramArguments.evaluation && ProgramArguments.adaptive) {
+				playAdaptive(playerPoints);
+			} else {
+				List<List<Integer>> games = new ArrayList<List<Integer>>();
+				if (ProgramArguments.evaluation) {
+					do {
+						List<Integer> aGamePlayers = new ArrayList<Integer>(aPlayers);
 
-				do {
-					GameController gameController = generateGameController(aGamePlayers);
-					playOneGame(gameController);
-					addPoints(gameController, playerPoints, aGamePlayers);
-				} while (nextPermutation(aGamePlayers));
+						do {
+							games.add(new ArrayList<Integer>(aGamePlayers));
+						} while (nextPermutation(aGamePlayers));
 
-			} while (nextPlayers(aPlayers));
-		} else {
-			GameController gameController = generateGameController(aPlayers);
-			playOneGame(gameController);
-			addPoints(gameController, playerPoints, aPlayers);
+					} while (nextPlayers(aPlayers));
+				} else {
+					games.add(aPlayers);
+				}
+				playGames(games, playerPoints, "");
+			}
+		} finally {
+			processPool.close();
 		}
 
 		logger.event("Total points evaluation (" + scenario.getId() + ") :");
@@ -94,23 +116,137 @@ public class Evaluation {
 			logger.event(playerNames.get(i) + ": " + playerPoints.get(i));
 		}
 
+		if (ratings != null) {
+			logRanking();
+		}
+
+		logResources();
+
 		logger.close();
 
 		return playerPoints;
 	}
 
 	/**
-	 * Add points according to the state of the GameController
+	 * Play rounds of games chosen by a RatingScheduler until the ratings converged
+	 *
+	 * @param playerPoints list of points for each player
+	 */
+	private void playAdaptive(List<Integer> playerPoints) throws InvalidConfigurationException {
+		ratings = new RatingScheduler(playerNames.size(), ProgramArguments.playerCount);
+		while (!ratings.isFinished()) {
+			String roundPrefix = "round" + ratings.getRound() + "_";
+			playGames(ratings.nextRound(), playerPoints, roundPrefix);
+		}
+	}
+
+	/**
+	 * Log the players ordered by their rating with the 95% confidence interval of the rating
+	 */
+	private void logRanking() {
+		logger.event("Ranking evaluation (" + scenario.getId() + ") after " + ratings.getRound() + " rounds"
+				+ (ratings.getRound() >= Consts.RATING_MAX_ROUNDS ? " (not converged)" : "") + ":");
+		int rank = 1;
+		for (int player : ratings.getRanking()) {
+			logger.event(rank + ". " + playerNames.get(player) + ": " + Math.round(ratings.getRating(player))
+					+ " +- " + Math.round(ratings.getConfidence(player)) + " (" + ratings.getGames(player) + " games)");
+			rank++;
+		}
+	}
+
+	/**
+	 * Log the resources used by each external player in all games
+	 */
+	private void logResources() {
+		logger.event("Resources evaluation (" + scenario.getId() + ") :");
+		for (int i = 0; i < playerNames.size(); i++) {
+			if (playerResources.get(i) != null) {
+				logger.event(playerNames.get(i) + ": " + playerResources.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Play the given games, one after another or concurrently if more than one thread is used
+	 *
+	 * @param games        the players of each game
+	 * @param playerPoints list of points for each player
+	 * @param logPrefix    added to the name of the log files
+	 */
+	private void playGames(List<List<Integer>> games, List<Integer> playerPoints, String logPrefix) throws InvalidConfigurationException {
+		if (ProgramArguments.threads <= 1 || games.size() <= 1) {
+			for (List<Integer> aGamePlayers : games) {
+				GameController gameController = generateGameController(aGamePlayers, logPrefix);
+				playOneGame(gameController);
+				addPoints(gameController, playerPoints, aGamePlayers);
+			}
+		} else {
+			playConcurrently(games, playerPoints, logPrefix);
+		}
+	}
+
+	/**
+	 * Play the given games on a pool of ProgramArguments.threads threads. Every game has its own
+	 * GameController, players and log files, so the results are the same as if they were played one
+	 * after another. The points are added in the order of the games.
+	 *
+	 * @param games        the players of each game
+	 * @param playerPoints list of points for each player
+	 * @param logPrefix    added to the name of the log files
+	 */
+	private void playConcurrently(List<List<Integer>> games, List<Integer> playerPoints, final String logPrefix) throws InvalidConfigurationException {
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(ProgramArguments.threads, games.size()));
+		try {
+			List<Future<GameController>> results = new ArrayList<Future<GameController>>();
+			for (final List<Integer> aGamePlayers : games) {
+				results.add(executor.submit(new Callable<GameController>() {
+					@Override
+					public GameController call() throws Exception {
+						GameController gameController = generateGameController(aGamePlayers, logPrefix);
+						playOneGame(gameController);
+						return gameController;
+					}
+				}));
+			}
+			for (int i = 0; i < games.size(); i++) {
+				addPoints(results.get(i).get(), playerPoints, games.get(i));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while waiting for the games", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof InvalidConfigurationException) {
+				throw (InvalidConfigurationException) e.getCause();
+			}
+			throw new IllegalStateException("game failed", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Add points according to the state of the GameController, update the ratings if they are used and
+	 * sum up the used resources
 	 * @param gameController the gameController
 	 * @param playerPoints list of points for each player
 	 * @param aGamePlayers list of players that participated (used to map from playerId to array index)
 	 */
 	private void addPoints(GameController gameController, List<Integer> playerPoints, List<Integer> aGamePlayers){
+		List<Boolean> survived = new ArrayList<Boolean>();
 		for(Player player : gameController.getPlayers()){
+			survived.add(gameController.getGameWorld().isPlayerStillAlive(player));
 			if(gameController.getGameWorld().isPlayerStillAlive(player)){
 				playerPoints.set(aGamePlayers.get(player.getId()),
 						playerPoints.get(aGamePlayers.get(player.getId())) + 1);
 			}
+			if(player instanceof ExternalAIPlayer && ((ExternalAIPlayer) player).getResourceUsage() != null){
+				int index = aGamePlayers.get(player.getId());
+				ResourceUsage usage = ((ExternalAIPlayer) player).getResourceUsage();
+				playerResources.set(index, playerResources.get(index) == null ? usage : playerResources.get(index).add(usage));
+			}
+		}
+		if(ratings != null){
+			ratings.addResult(aGamePlayers, survived);
 		}
 	}
 
@@ -118,14 +254,16 @@ public class Evaluation {
 	 * Generate a GameController for the given players
 	 *
 	 * @param players the players
+	 * @param roundPrefix added to the name of the log files after the scenario
 	 * @return the GameController
 	 */
-	private GameController generateGameController(List<Integer> players) throws InvalidConfigurationException {
+	private GameController generateGameController(List<Integer> players, String roundPrefix) throws InvalidConfigurationException {
 		GameLogger logger = new GameLogger();
 
 		StringBuilder logPrefix = new StringBuilder();
 		logPrefix.append(scenario.getId());
 		logPrefix.append("_");
+		logPrefix.append(roundPrefix);
 		for (Integer i : players) {
 			logPrefix.append(i);
 			logPrefix.append("_");
@@ -135,11 +273,17 @@ public class Evaluation {
 		if(ProgramArguments.gameLog != null) {
 			logger.setGameLogPath(logPrefix + ProgramArguments.gameLog);
 		}
+		if(ProgramArguments.binaryGameLog != null) {
+			logger.setBinaryGameLogPath(logPrefix + ProgramArguments.binaryGameLog);
+		}
 		if(ProgramArguments.behaviourLog != null) {
 			logger.setBehaviourLogPath(logPrefix + ProgramArguments.behaviourLog);
 		}
 		logger.setPrintStdOut(ProgramArguments.printStdOut);
 		logger.setPrintStdErr(ProgramArguments.printStdErr);
+		if(ProgramArguments.asyncLog) {
+			logger.startAsync();
+		}
 
 		GameController gameController = new GameController(scenario, logger);
 
@@ -152,6 +296,8 @@ public class Evaluation {
 			} else {
 				player = new ExternalAIPlayer();
 				((ExternalAIPlayer) player).setCommand(playerCommands.get(players.get(i)));
+				((ExternalAIPlayer) player).setProcessPool(processPool);
+				((ExternalAIPlayer) player).setResourceLimits(ProgramArguments.cpuLimit, ProgramArguments.memoryLimit);
 			}
 			gameController.addPlayer(player);
 			player.setColor(Consts.playerColors[i % Consts.playerColors.length]);
@@ -233,10 +379,7 @@ public class Evaluation {
 	 * @param gameController the gameController to use to simulate
 	 */
 	private void playOneGame(GameController gameController) {
-		gameController.startGame();
-		while (!gameController.isGameEnded()) {
-			gameController.update(Consts.headlessFrameDuration);
-		}
+		gameController.playUntilEnd();
 	}
 
 }
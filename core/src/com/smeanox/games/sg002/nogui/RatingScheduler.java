@@ -0,0 +1,240 @@
+package com.smeanox.games.sg002.nogui;
+
+import com.smeanox.games.sg002.util.Consts;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Schedules the games of an adaptive evaluation. Every player has a Glicko rating with a deviation
+ * describing its uncertainty. The games are played in rounds in which every player plays at least once,
+ * the player with the highest deviation is matched with the players closest to its rating (like a
+ * swiss system) and the seats are rotated from round to round.
+ * <br>
+ * A game counts as a win against every opponent that died while the player survived, as a draw against
+ * the opponents with the same outcome and as a loss otherwise. The evaluation is converged if the
+ * deviation of every player is below {@link Consts#RATING_CONVERGED_DEVIATION}. Before every round the
+ * deviations grow by {@link Consts#RATING_DEVIATION_INCREASE}, so they only converge if the results of
+ * the games are consistent with the ratings.
+ *
+ * @author Benjamin Schmid
+ */
+class RatingScheduler {
+	private static final double Q = Math.log(10) / 400;
+
+	private int gamePlayerCount;
+	private double[] ratings;
+	private double[] deviations;
+	private int[] games;
+	private int round;
+
+	private Comparator<Integer> highestDeviation = new Comparator<Integer>() {
+		@Override
+		public int compare(Integer o1, Integer o2) {
+			int result = Double.compare(deviations[o2], deviations[o1]);
+			return result != 0 ? result : o1 - o2;
+		}
+	};
+
+	/**
+	 * Create a new scheduler
+	 *
+	 * @param playerCount     the number of players in the evaluation
+	 * @param gamePlayerCount the number of players in one game
+	 */
+	RatingScheduler(int playerCount, int gamePlayerCount) {
+		if (gamePlayerCount > playerCount) {
+			throw new IllegalArgumentException("a game can not have more players than the evaluation");
+		}
+		this.gamePlayerCount = gamePlayerCount;
+		ratings = new double[playerCount];
+		deviations = new double[playerCount];
+		games = new int[playerCount];
+		for (int i = 0; i < playerCount; i++) {
+			ratings[i] = Consts.RATING_INITIAL;
+			deviations[i] = Consts.RATING_INITIAL_DEVIATION;
+		}
+		round = 0;
+	}
+
+	/**
+	 * Whether the ratings are known precisely enough or the maximal number of rounds was played
+	 *
+	 * @return true if no more games should be played
+	 */
+	boolean isFinished() {
+		if (round >= Consts.RATING_MAX_ROUNDS) {
+			return true;
+		}
+		for (double deviation : deviations) {
+			if (deviation >= Consts.RATING_CONVERGED_DEVIATION) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Return the number of rounds scheduled so far
+	 *
+	 * @return the number of rounds
+	 */
+	int getRound() {
+		return round;
+	}
+
+	/**
+	 * Schedule the games of the next round. The results of all games of the last round have to be
+	 * added before.
+	 *
+	 * @return the players of each game in seat order
+	 */
+	List<List<Integer>> nextRound() {
+		if (round > 0) {
+			increaseDeviations();
+		}
+
+		List<Integer> remaining = new ArrayList<Integer>();
+		for (int i = 0; i < ratings.length; i++) {
+			remaining.add(i);
+		}
+		Collections.sort(remaining, highestDeviation);
+
+		List<List<Integer>> roundGames = new ArrayList<List<Integer>>();
+		while (!remaining.isEmpty()) {
+			final int anchor = remaining.remove(0);
+			Comparator<Integer> closestRating = new Comparator<Integer>() {
+				@Override
+				public int compare(Integer o1, Integer o2) {
+					int result = Double.compare(Math.abs(ratings[o1] - ratings[anchor]),
+							Math.abs(ratings[o2] - ratings[anchor]));
+					return result != 0 ? result : o1 - o2;
+				}
+			};
+
+			List<Integer> game = new ArrayList<Integer>();
+			game.add(anchor);
+			Collections.sort(remaining, closestRating);
+			while (game.size() < gamePlayerCount && !remaining.isEmpty()) {
+				game.add(remaining.remove(0));
+			}
+			if (game.size() < gamePlayerCount) {
+				// not enough players left for this round, some play a second game
+				List<Integer> others = new ArrayList<Integer>();
+				for (int i = 0; i < ratings.length; i++) {
+					if (!game.contains(i)) {
+						others.add(i);
+					}
+				}
+				Collections.sort(others, closestRating);
+				game.addAll(others.subList(0, gamePlayerCount - game.size()));
+			}
+			Collections.sort(remaining, highestDeviation);
+
+			// rotate the seats so every player gets to play from different start positions
+			Collections.sort(game);
+			Collections.rotate(game, round % gamePlayerCount);
+			roundGames.add(game);
+		}
+
+		round++;
+		return roundGames;
+	}
+
+	/**
+	 * Increase the deviation of every player at the start of a new rating period, at most to the initial
+	 * deviation
+	 */
+	private void increaseDeviations() {
+		for (int i = 0; i < deviations.length; i++) {
+			deviations[i] = Math.min(Math.sqrt(deviations[i] * deviations[i]
+					+ Consts.RATING_DEVIATION_INCREASE * Consts.RATING_DEVIATION_INCREASE), Consts.RATING_INITIAL_DEVIATION);
+		}
+	}
+
+	/**
+	 * Update the ratings with the outcome of a game
+	 *
+	 * @param players  the players of the game
+	 * @param survived whether each of the players survived
+	 */
+	void addResult(List<Integer> players, List<Boolean> survived) {
+		int count = players.size();
+		double[] newRatings = new double[count];
+		double[] newDeviations = new double[count];
+		for (int i = 0; i < count; i++) {
+			int player = players.get(i);
+			boolean playerSurvived = survived.get(i);
+			double variance = 0;
+			double improvement = 0;
+			for (int j = 0; j < count; j++) {
+				int opponent = players.get(j);
+				if (opponent == player) {
+					continue;
+				}
+				double g = g(deviations[opponent]);
+				double expected = 1 / (1 + Math.pow(10, -g * (ratings[player] - ratings[opponent]) / 400));
+				boolean opponentSurvived = survived.get(j);
+				double score = playerSurvived == opponentSurvived ? 0.5 : (playerSurvived ? 1 : 0);
+				variance += g * g * expected * (1 - expected);
+				improvement += g * (score - expected);
+			}
+			double precision = 1 / (deviations[player] * deviations[player]) + Q * Q * variance;
+			newRatings[i] = ratings[player] + Q / precision * improvement;
+			newDeviations[i] = Math.max(Math.sqrt(1 / precision), Consts.RATING_MIN_DEVIATION);
+		}
+		for (int i = 0; i < count; i++) {
+			ratings[players.get(i)] = newRatings[i];
+			deviations[players.get(i)] = newDeviations[i];
+			games[players.get(i)]++;
+		}
+	}
+
+	private static double g(double deviation) {
+		return 1 / Math.sqrt(1 + 3 * Q * Q * deviation * deviation / (Math.PI * Math.PI));
+	}
+
+	/**
+	 * Return the players sorted by their rating, best first
+	 *
+	 * @return the ranking
+	 */
+	List<Integer> getRanking() {
+		List<Integer> ranking = new ArrayList<Integer>();
+		for (int i = 0; i < ratings.length; i++) {
+			ranking.add(i);
+		}
+		Collections.sort(ranking, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				int result = Double.compare(ratings[o2], ratings[o1]);
+				return result != 0 ? result : o1 - o2;
+			}
+		});
+		return ranking;
+	}
+
+	double getRating(int player) {
+		return ratings[player];
+	}
+
+	double getDeviation(int player) {
+		return deviations[player];
+	}
+
+	/**
+	 * Return the half width of the 95% confidence interval of the rating of the given player
+	 *
+	 * @param player the player
+	 * @return the half width
+	 */
+	double getConfidence(int player) {
+		return 1.96 * deviations[player];
+	}
+
+	int getGames(int player) {
+		return games[player];
+	}
+}
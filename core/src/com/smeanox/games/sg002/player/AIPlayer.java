@@ -19,6 +19,8 @@ public abstract class AIPlayer extends Player {
 	protected float aiSleepLeft;
 
 	protected long seed0, seed1;
+	// every AI has its own generator, so games can be played concurrently
+	private RandomXS128 random;
 
 	@Override
 	public final void update(float delta) {
@@ -29,33 +31,64 @@ public abstract class AIPlayer extends Player {
 		}
 	}
 
+	@Override
+	public boolean finishRoundNow() {
+		if (!finishedPlaying) {
+			return false;
+		}
+		finishPlaying();
+		return true;
+	}
+
 	/**
 	 * finish the round
 	 */
 	private void finishPlaying(){
 		finishedPlaying = false;
 
-		if(MathUtils.random instanceof RandomXS128) {
-			seed0 = ((RandomXS128) MathUtils.random).getState(0);
-			seed1 = ((RandomXS128) MathUtils.random).getState(1);
-		}
+		seed0 = random.getState(0);
+		seed1 = random.getState(1);
 
 		endPlaying();
 	}
 
 	@Override
 	protected final void play() throws ProtocolViolationException {
-		if(MathUtils.random instanceof RandomXS128) {
-			if(seed0 == 0 && seed1 == 0){
-				seed0 = System.currentTimeMillis();
-				seed1 = MathUtils.random(Long.MIN_VALUE, Long.MAX_VALUE);
-			}
-			((RandomXS128) MathUtils.random).setState(seed0, seed1);
+		if(seed0 == 0 && seed1 == 0){
+			seed0 = System.currentTimeMillis();
+			seed1 = MathUtils.random(Long.MIN_VALUE, Long.MAX_VALUE);
+		}
+		if(random == null){
+			random = new RandomXS128(seed0, seed1);
+		} else {
+			random.setState(seed0, seed1);
 		}
 
 		playAI();
 	}
 
+	/**
+	 * Return a random number between 0 (inclusive) and the specified value (inclusive)
+	 *
+	 * @param range the maximal value
+	 * @return the random number
+	 * @see MathUtils#random(int)
+	 */
+	protected int random(int range) {
+		return random.nextInt(range + 1);
+	}
+
+	/**
+	 * Return true with the given chance
+	 *
+	 * @param chance the chance, between 0 and 1
+	 * @return true with the given chance
+	 * @see MathUtils#randomBoolean(float)
+	 */
+	protected boolean randomBoolean(float chance) {
+		return random.nextFloat() < chance;
+	}
+
 	/**
 	 * Perform the moves for this round
 	 */
@@ -1,6 +1,5 @@
 package com.smeanox.games.sg002.player;
 
-import com.badlogic.gdx.math.MathUtils;
 import com.smeanox.games.sg002.data.Point;
 import com.smeanox.games.sg002.world.GameObjectType;
 
@@ -32,11 +31,11 @@ public class AIPlayer_BenNo1 extends LocalAIPlayer {
 		if (positions.get("townCenter").size() > 0) {
 			// we need more villagers
 			for (Point pos : positions.get("townCenter")) {
-				if (MathUtils.randomBoolean(0.15f)) {
+				if (randomBoolean(0.15f)) {
 					continue;
 				}
 
-				int toProduce = MathUtils.random(military.length - 1);
+				int toProduce = random(military.length - 1);
 				Point field = getFirstFreeProduceField(pos, military[toProduce]);
 				if (field != null) {
 					gameWorld.produce(pos.x, pos.y, field.x, field.y, military[toProduce]);
@@ -47,8 +46,8 @@ public class AIPlayer_BenNo1 extends LocalAIPlayer {
 			for (Point pos : positions.get("villager")) {
 				// build
 				Point field = getFirstFreeProduceField(pos, GameObjectType.getGameObjectTypeById("goldMine"));
-				if (MathUtils.randomBoolean(field != null ? 0.95f : 0.1f)) {
-					String toBuild = MathUtils.randomBoolean(0.1f) ? "townCenter" : "goldMine";
+				if (randomBoolean(field != null ? 0.95f : 0.1f)) {
+					String toBuild = randomBoolean(0.1f) ? "townCenter" : "goldMine";
 					field = getFirstFreeProduceField(pos, GameObjectType.getGameObjectTypeById(toBuild));
 					if (field != null) {
 						gameWorld.produce(pos.x, pos.y, field.x, field.y,
@@ -78,7 +77,7 @@ public class AIPlayer_BenNo1 extends LocalAIPlayer {
 		for (GameObjectType aMilitary : military) {
 			for (Point pos : positions.get(aMilitary.getId())) {
 				// attack
-				if (MathUtils.randomBoolean(0.5f)) {
+				if (randomBoolean(0.5f)) {
 					Point field = getRandomFightField(pos);
 					if (field != null) {
 						gameWorld.fight(pos.x, pos.y, field.x, field.y);
@@ -0,0 +1,58 @@
+package com.smeanox.games.sg002.player;
+
+import com.smeanox.games.sg002.log.BinaryReplayReader;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Read a binary replay round by round
+ *
+ * @author Benjamin Schmid
+ */
+class BinaryReplaySource extends ReplaySource {
+	private BinaryReplayReader reader;
+
+	/**
+	 * Open the given file and read the header
+	 *
+	 * @param replayFile the file
+	 * @throws IOException if the file could not be read or is not a binary replay
+	 */
+	BinaryReplaySource(File replayFile) throws IOException {
+		reader = new BinaryReplayReader(replayFile);
+		startMoney = reader.getStartMoney();
+		mapSizeX = reader.getMapSizeX();
+		mapSizeY = reader.getMapSizeY();
+		rules = reader.getRules();
+		playerNames = reader.getPlayerNames();
+		goldPos = reader.getGoldPos();
+		startPos = reader.getStartPos();
+	}
+
+	@Override
+	protected boolean readRound() throws IOException {
+		if (!reader.nextRound()) {
+			return false;
+		}
+		roundPlayer = reader.getRoundPlayer();
+		while (reader.nextAction()) {
+			addAction(reader.getActionType(), reader.getStartX(), reader.getStartY(), reader.getEndX(),
+					reader.getEndY(), reader.getProduceType());
+		}
+		roundHasChecksum = reader.hasChecksum();
+		roundChecksum = reader.getChecksum();
+		return true;
+	}
+
+	@Override
+	public void seekRound(int round) throws IOException {
+		reader.seekRound(round);
+		this.round = round - 1;
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+}
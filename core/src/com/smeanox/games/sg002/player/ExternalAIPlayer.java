@@ -8,12 +8,12 @@ import com.smeanox.games.sg002.world.GameObject;
 import com.smeanox.games.sg002.world.GameObjectType;
 import com.smeanox.games.sg002.world.Scenario;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -22,33 +22,101 @@ import java.util.concurrent.TimeUnit;
  * @author Benjamin Schmid
  */
 public class ExternalAIPlayer extends AIPlayer {
+	private static final int MOVE_ID = Integer.parseInt(Consts.MOVE_ID);
+	private static final int FIGHT_ID = Integer.parseInt(Consts.FIGHT_ID);
+	private static final int PRODUCE_ID = Integer.parseInt(Consts.PRODUCE_ID);
+
 	private GameLogger logger;
 
 	private String command;
-	private Process process;
-	private PrintWriter programIn;
-	private BufferedReader programOut, programErr;
+	private boolean pooled;
+	private ExternalProcessPool processPool;
+	private ExternalProcess process;
+
+	private boolean violatedProtocol;
+	private long remainingTime;
+	private long turnStart;
+	private int turns;
+
+	private long cpuLimit;
+	private long memoryLimit;
+	private ResourceUsage startResources;
+	private ResourceUsage resourceUsage;
 
-	private ArrayBlockingQueue<String> programOutQueue;
-	private ProgramOutToQueueThread programOutToQueueThread;
-	private StdErrHandlerThread stdErrHandlerThread;
+	private int protocolVersion = 1;
+	private boolean answeredOnce = false;
+	private IdentityHashMap<GameObject, SentGameObject> sentGameObjects = new IdentityHashMap<GameObject, SentGameObject>();
+	private int nextGameObjectId = 0;
 
-	private boolean terminating;
-	private int usedTimeouts;
+	private ProtocolWriter writer = new ProtocolWriter();
+	private ArrayList<SentGameObject> changedGameObjects = new ArrayList<SentGameObject>();
+	private ArrayList<SentGameObject> createdGameObjects = new ArrayList<SentGameObject>();
+	private int[] removedIds = new int[16];
+	private int removedCount;
+
+	private Action desiredAction = new Action();
 
 	public String getCommand() {
 		return command;
 	}
 
+	/**
+	 * Set the command used to start the program. If it starts with {@link Consts#COMMAND_POOLED_PREFIX}
+	 * the program supports playing multiple games and may be reused by a process pool.
+	 *
+	 * @param command the command
+	 */
 	public void setCommand(String command) {
 		if (process != null) {
 			throw new IllegalStateException("the command can not be changed after the process was started");
 		}
-		this.command = command;
+		pooled = command != null && command.startsWith(Consts.COMMAND_POOLED_PREFIX);
+		this.command = pooled ? command.substring(Consts.COMMAND_POOLED_PREFIX.length()) : command;
+	}
+
+	public boolean isPooled() {
+		return pooled;
+	}
+
+	public ExternalProcessPool getProcessPool() {
+		return processPool;
 	}
 
 	/**
-	 * Start the process and set up all reader and writer, but no data is fed to the process
+	 * Set the pool to take the process from. The pool is only used if the command is pooled.
+	 *
+	 * @param processPool the pool, may be null
+	 */
+	public void setProcessPool(ExternalProcessPool processPool) {
+		if (process != null) {
+			throw new IllegalStateException("the pool can not be changed after the process was started");
+		}
+		this.processPool = processPool;
+	}
+
+	/**
+	 * Set the limits for the resources the program may use in a game. If it uses more it is terminated
+	 * like after a protocol violation.
+	 *
+	 * @param cpuLimit    the CPU time in ms, 0 for no limit
+	 * @param memoryLimit the peak resident memory in MB, 0 for no limit
+	 */
+	public void setResourceLimits(long cpuLimit, long memoryLimit) {
+		this.cpuLimit = cpuLimit;
+		this.memoryLimit = memoryLimit;
+	}
+
+	/**
+	 * Return the resources the program used in this game, as measured after its last turn
+	 *
+	 * @return the resources or null if the program was not started
+	 */
+	public ResourceUsage getResourceUsage() {
+		return resourceUsage;
+	}
+
+	/**
+	 * Start the process (or take one from the pool), but no data is fed to the process
 	 *
 	 * @throws IOException
 	 */
@@ -65,28 +133,24 @@ public class ExternalAIPlayer extends AIPlayer {
 			logger = GameLogger.createDummyLogger();
 		}
 
-		logger.tech("gonna start \"" + name + "\" with command \"" + command + "\"");
-
-		process = Runtime.getRuntime().exec(command);
-		programIn = new PrintWriter(process.getOutputStream(), false);
-		programOut = new BufferedReader(new InputStreamReader(process.getInputStream()));
-		programErr = new BufferedReader(new InputStreamReader(process.getErrorStream()));
-
-		programOutQueue = new ArrayBlockingQueue<String>(10, true);
-		programOutToQueueThread = new ProgramOutToQueueThread(programOutQueue, programOut);
-		stdErrHandlerThread = new StdErrHandlerThread(id, name, programErr);
-
-		programOutToQueueThread.start();
-		stdErrHandlerThread.start();
-
-		terminating = false;
-		usedTimeouts = 0;
+		if (pooled && processPool != null) {
+			process = processPool.acquire(command, logger, id + "/" + name);
+		} else {
+			process = new ExternalProcess(command);
+			process.setLogger(logger, id + "/" + name);
+			process.start();
+		}
 
-		logger.tech("started \"" + name + "\"");
+		startResources = process.measureResources();
+		resourceUsage = null;
+		violatedProtocol = false;
+		remainingTime = TimeUnit.MILLISECONDS.toNanos(gameController.getScenario().getTimeBudget());
+		turns = 0;
 	}
 
 	/**
-	 * Terminate the process and close all reader and writer
+	 * Terminate the process and close all reader and writer. If the process is pooled and did
+	 * not violate the protocol it is returned to the pool instead.
 	 *
 	 * @throws IOException
 	 */
@@ -95,353 +159,389 @@ public class ExternalAIPlayer extends AIPlayer {
 			return;
 		}
 
-		if (terminating) {
-			return;
+		measureResources();
+		ExternalProcess oldProcess = process;
+		process = null;
+		if (pooled && processPool != null && !violatedProtocol) {
+			processPool.release(oldProcess);
+		} else {
+			oldProcess.terminate();
 		}
-		terminating = true;
-
-		logger.tech("gonna terminate \"" + name + "\"");
-
-		programOutToQueueThread.setTerminating(true);
-		programOutToQueueThread.interrupt();
-		stdErrHandlerThread.setTerminating(true);
-		// no need to interrupt stdErrHandlerThread, it will be terminated because stderr is closed
+	}
 
-		Thread terminator = new Thread() {
-			@Override
-			public void run() {
-				try {
-					int exitStatus = process.waitFor();
-					logger.progBehaviour(id + "/" + name, "exited with status " + exitStatus);
-				} catch (InterruptedException e) {
-					process.destroy();
-					logger.progBehaviour(id + "/" + name, "did not exit properly and was therefore killed");
-				}
-			}
-		};
-		terminator.start();
+	/**
+	 * Write the values of the scenario
+	 */
+	private void writeScenario() {
+		Scenario scenario = gameController.getScenario();
+		writer.write(gameController.getPlayers().size()).write(scenario.getStartMoney())
+				.write(scenario.getMapSizeX()).write(scenario.getMapSizeY()).write(id)
+				.write(scenario.getMaxGold()).endLine();
 
-		try {
-			terminator.join(50);
-			if (terminator.isAlive()) {
-				terminator.interrupt();
-			}
-		} catch (InterruptedException e) {
-			throw new RuntimeException(e);
+		for (Point point : scenario.getGoldPos()) {
+			writer.write(point.x).write(point.y).endLine();
 		}
-
-		programOut.close();
-		programIn.close();
-		programErr.close();
-
-		process = null;
 	}
 
 	/**
-	 * Join the given values, separated by one space
+	 * Encode the data for the start of a new round without sending it
 	 *
-	 * @param values the values
-	 * @return the joined string
+	 * @return the writer containing the data
 	 */
-	private String joinValues(Object... values) {
-		LinkedList<String> vals = new LinkedList<String>();
-		for (Object o : values) {
-			vals.add(o.toString());
-		}
-		return String.join(" ", vals);
+	ProtocolWriter encodeRound() {
+		writer.clear();
+		writeRound();
+		return writer;
 	}
 
 	/**
-	 * Feed the values of the scenario to the program
+	 * Write the data for the start of a new round
 	 */
-	private void feedScenario() {
-		Scenario scenario = gameController.getScenario();
-		programIn.println(joinValues(gameController.getPlayers().size(), scenario.getStartMoney(),
-				scenario.getMapSizeX(), scenario.getMapSizeY(), id, scenario.getMaxGold()));
-
-		for (Point point : scenario.getGoldPos()) {
-			programIn.println(joinValues(point.x, point.y));
-		}
-
-		programIn.flush();
+	private void writeRound() {
+		writeCurrentPlayerState();
+		writeGameState();
+		writePerformedActions();
 	}
 
 	/**
-	 * Feed the data for the start of a new round
+	 * Write the data for the current state of all players
 	 */
-	private void feedRound() {
-		feedCurrentPlayerState();
-		feedGameState();
-		feedPerformedActions();
+	private void writeCurrentPlayerState() {
+		for (Player player : gameController.getPlayers()) {
+			writer.writeLine(player.getMoney());
+		}
 	}
 
 	/**
-	 * Feed the data for the current state of all players
+	 * Write the data for the current state of the gameWorld
 	 */
-	private void feedCurrentPlayerState() {
-		for (Player player : gameController.getPlayers()) {
-			programIn.println(player.getMoney());
+	private void writeGameState() {
+		if (protocolVersion == Consts.PROTOCOL_VERSION_DELTA) {
+			writeGameStateDelta();
+			return;
+		}
+
+		writer.writeLine(gameWorld.getGameObjects().size());
+		for (GameObject gameObject : gameWorld.getGameObjects()) {
+			writer.write(gameObject.getPlayer().getId()).write(gameObject.getPositionX())
+					.write(gameObject.getPositionY()).write(gameObject.getGameObjectType().getExternalId())
+					.write(gameObject.getHp()).endLine();
 		}
-		programIn.flush();
 	}
 
 	/**
-	 * Feed the data for the current state of the gameWorld
+	 * Write the changes of the gameWorld since the last round: first the removed GameObjects, then the
+	 * changed ones and then the created ones. Every GameObject keeps its id as long as it exists.
 	 */
-	private void feedGameState() {
-		programIn.println(gameWorld.getGameObjects().size());
+	private void writeGameStateDelta() {
+		changedGameObjects.clear();
+		createdGameObjects.clear();
 		for (GameObject gameObject : gameWorld.getGameObjects()) {
-			programIn.println(joinValues(gameObject.getPlayer().getId(), gameObject.getPositionX(),
-					gameObject.getPositionY(), gameObject.getGameObjectType().getExternalId(),
-					gameObject.getHp()));
+			SentGameObject sent = sentGameObjects.get(gameObject);
+			if (sent == null) {
+				sent = new SentGameObject(nextGameObjectId++, gameObject.getGameObjectType().getExternalId());
+				sentGameObjects.put(gameObject, sent);
+				sent.update(gameObject);
+				createdGameObjects.add(sent);
+			} else if (sent.update(gameObject)) {
+				changedGameObjects.add(sent);
+			}
+			sent.seen = true;
 		}
 
-		programIn.flush();
+		removedCount = 0;
+		Iterator<SentGameObject> iterator = sentGameObjects.values().iterator();
+		while (iterator.hasNext()) {
+			SentGameObject sent = iterator.next();
+			if (!sent.seen) {
+				if (removedCount == removedIds.length) {
+					removedIds = Arrays.copyOf(removedIds, removedIds.length * 2);
+				}
+				removedIds[removedCount++] = sent.id;
+				iterator.remove();
+			}
+			sent.seen = false;
+		}
+		Arrays.sort(removedIds, 0, removedCount);
+
+		writer.writeLine(removedCount + changedGameObjects.size() + createdGameObjects.size());
+		for (int i = 0; i < removedCount; i++) {
+			writer.write(Consts.REMOVED_ID).write(removedIds[i]).endLine();
+		}
+		for (int i = 0; i < changedGameObjects.size(); i++) {
+			SentGameObject sent = changedGameObjects.get(i);
+			writer.write(Consts.CHANGED_ID).write(sent.id).write(sent.player).write(sent.positionX)
+					.write(sent.positionY).write(sent.hp).endLine();
+		}
+		for (int i = 0; i < createdGameObjects.size(); i++) {
+			SentGameObject sent = createdGameObjects.get(i);
+			writer.write(Consts.CREATED_ID).write(sent.id).write(sent.player).write(sent.positionX)
+					.write(sent.positionY).write(sent.type).write(sent.hp).endLine();
+		}
 	}
 
 	/**
-	 * Feed the data for all performed actions since the last round
+	 * Write the data for all performed actions since the last round
 	 */
-	private void feedPerformedActions() {
-		LinkedList<String> lines = new LinkedList<String>();
-		for (int i = 1; i < gameController.getPlayers().size(); i++) {
-			Player player = gameController.getPlayers().get((id + i) % gameController.getPlayers().size());
-			if (gameWorld.getPlayerActions().containsKey(player)) {
-				for (Action action : gameWorld.getPlayerActions().get(player)) {
-					String actionID = null;
-					switch (action.actionType) {
-						case MOVE:
-							actionID = Consts.MOVE_ID;
-							break;
-						case FIGHT:
-							actionID = Consts.FIGHT_ID;
-							break;
-						case PRODUCE:
-							actionID = Consts.PRODUCE_ID;
-							break;
-						case NONE:
-							break;
-					}
-					String line = joinValues(player.getId(), actionID, action.startX, action.startY,
-							action.endX, action.endY);
-					if(action.actionType == Action.ActionType.PRODUCE){
-						line += " " + action.produceGameObjectType.getExternalId();
-					}
-					lines.add(line);
-				}
+	private void writePerformedActions() {
+		LinkedList<Player> players = gameController.getPlayers();
+		int count = 0;
+		for (int i = 1; i < players.size(); i++) {
+			LinkedList<Action> actions = gameWorld.getPlayerActions().get(players.get((id + i) % players.size()));
+			if (actions != null) {
+				count += actions.size();
 			}
 		}
 
-		programIn.println(lines.size());
-		for(String line : lines){
-			programIn.println(line);
+		writer.writeLine(count);
+		for (int i = 1; i < players.size(); i++) {
+			Player player = players.get((id + i) % players.size());
+			LinkedList<Action> actions = gameWorld.getPlayerActions().get(player);
+			if (actions == null) {
+				continue;
+			}
+			for (Action action : actions) {
+				writer.write(player.getId()).write(getActionId(action.actionType)).write(action.startX)
+						.write(action.startY).write(action.endX).write(action.endY);
+				if (action.actionType == Action.ActionType.PRODUCE) {
+					writer.write(action.produceGameObjectType.getExternalId());
+				}
+				writer.endLine();
+			}
 		}
+	}
 
-		programIn.flush();
+	/**
+	 * Return the id used in the protocol for the given action type
+	 *
+	 * @param actionType the action type
+	 * @return the id
+	 */
+	private String getActionId(Action.ActionType actionType) {
+		switch (actionType) {
+			case MOVE:
+				return Consts.MOVE_ID;
+			case FIGHT:
+				return Consts.FIGHT_ID;
+			case PRODUCE:
+				return Consts.PRODUCE_ID;
+			default:
+				throw new IllegalArgumentException("no id for " + actionType);
+		}
 	}
 
 	/**
-	 * Read the next line from the process and handles not responding
+	 * Wait for the next line from the process and handles not responding. Afterwards the line
+	 * can be parsed with the reader of the process.
 	 *
-	 * @return the read line
+	 * @return the reader positioned at the start of the line
 	 */
-	private String getNextLine() throws ProtocolViolationException {
+	private ProtocolReader nextLine() throws ProtocolViolationException {
 		try {
-			String nextLine = null;
-			nextLine = programOutQueue.poll(Consts.EXTERNAL_SHORT_TIMEOUT, TimeUnit.MILLISECONDS);
-
-			if (nextLine == null) {
-				// no line was available within timeout
-				if (programOutToQueueThread.isAlive()) {
-					// process is still running, try again
-					nextLine = programOutQueue.poll(Consts.EXTERNAL_LONG_TIMEOUT, TimeUnit.MILLISECONDS);
-					if (nextLine == null) {
-						// process is blocked or in endless loop
-						throw new ProtocolViolationException("did not print a line within " +
-								(Consts.EXTERNAL_SHORT_TIMEOUT + Consts.EXTERNAL_LONG_TIMEOUT) + "ms");
-					} else {
-						logger.progBehaviour(id + "/" + name, "used between "
-								+ Consts.EXTERNAL_SHORT_TIMEOUT + " and " +
-								(Consts.EXTERNAL_SHORT_TIMEOUT + Consts.EXTERNAL_LONG_TIMEOUT) + "ms");
-						usedTimeouts++;
-						if (usedTimeouts > Consts.EXTERNAL_MAX_TIMEOUT_COUNT) {
-							throw new ProtocolViolationException("used all allowed timeouts" +
-									"(e.g. it took too long to output a line too often)");
-						}
-					}
-				} else {
+			ProtocolReader reader = process.getReader();
+			long timeLeft = remainingTime - (System.nanoTime() - turnStart);
+			if (!reader.awaitLine(Math.max(0, TimeUnit.NANOSECONDS.toMillis(timeLeft)))) {
+				if (reader.isClosed()) {
 					// process crashed
 					throw new ProtocolViolationException("exited instead of printing a line");
 				}
+				// process is blocked, in endless loop or just too slow
+				throw new ProtocolViolationException("ran out of time (had "
+						+ TimeUnit.NANOSECONDS.toMillis(remainingTime) + "ms in turn " + turns + ")");
 			}
-
-			return nextLine;
+			return reader;
 		} catch (InterruptedException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
 	/**
-	 * Read the desired actions
+	 * Update the resources used by the program in this game. A measurement that failed because the
+	 * program already exited does not replace the last one.
+	 */
+	private void measureResources() {
+		ResourceUsage usage = process.measureResources().since(startResources);
+		if (resourceUsage == null || usage.getCpuTime() >= 0) {
+			resourceUsage = usage;
+		}
+	}
+
+	/**
+	 * Check whether the program stayed within its resource limits
+	 */
+	private void checkResources() throws ProtocolViolationException {
+		measureResources();
+		if (cpuLimit > 0 && resourceUsage.getCpuTime() > cpuLimit) {
+			throw new ProtocolViolationException("used more than " + cpuLimit + "ms CPU time ("
+					+ resourceUsage.getCpuTime() + "ms)");
+		}
+		if (memoryLimit > 0 && resourceUsage.getPeakMemory() > memoryLimit * 1024) {
+			throw new ProtocolViolationException("used more than " + memoryLimit + "MB memory ("
+					+ resourceUsage.getPeakMemory() / 1024 + "MB)");
+		}
+	}
+
+	/**
+	 * Stop the clock after the moves of a turn were read and add the increment
+	 */
+	private void finishTurn() throws ProtocolViolationException {
+		long usedTime = System.nanoTime() - turnStart;
+		remainingTime -= usedTime;
+		if (remainingTime < 0) {
+			throw new ProtocolViolationException("ran out of time (had "
+					+ TimeUnit.NANOSECONDS.toMillis(remainingTime + usedTime) + "ms in turn " + turns + ")");
+		}
+		remainingTime += TimeUnit.MILLISECONDS.toNanos(gameController.getScenario().getTimeIncrement());
+		logger.progBehaviour(id + "/" + name, "turn " + turns + " took " + TimeUnit.NANOSECONDS.toMicros(usedTime)
+				+ "us, " + TimeUnit.NANOSECONDS.toMillis(remainingTime) + "ms left");
+		turns++;
+	}
+
+	/**
+	 * Read the desired actions and perform them
 	 */
 	private void readDesiredActions() throws ProtocolViolationException {
-		String nextLine = getNextLine();
-		if (nextLine == null) {
-			return;
+		ProtocolReader reader = nextLine();
+		if (reader.startsWith(Consts.PROTOCOL_ID)) {
+			chooseProtocolVersion(reader);
+			reader = nextLine();
+		}
+		answeredOnce = true;
+		int desiredActionsCount;
+		try {
+			desiredActionsCount = reader.nextInt();
+		} catch (NumberFormatException e) {
+			throw new ProtocolViolationException("invalid number of actions (not a number): " + reader.getLine());
+		} catch (IndexOutOfBoundsException e) {
+			throw new ProtocolViolationException("no number of actions provided");
 		}
-		int desiredActionsCount = Integer.parseInt(nextLine);
 
 		for (int i = 0; i < desiredActionsCount; i++) {
+			reader = nextLine();
 			try {
-				nextLine = getNextLine();
-				if (nextLine == null) {
-					throw new ProtocolViolationException("no next line provided");
-				}
-				String[] parts = nextLine.split(" +");
-
-				Action desiredAction = new Action();
-				if (Consts.MOVE_ID.equals(parts[0])) {
+				int actionId = reader.nextInt();
+				if (actionId == MOVE_ID) {
 					desiredAction.actionType = Action.ActionType.MOVE;
-				} else if (Consts.FIGHT_ID.equals(parts[0])) {
+				} else if (actionId == FIGHT_ID) {
 					desiredAction.actionType = Action.ActionType.FIGHT;
-				} else if (Consts.PRODUCE_ID.equals(parts[0])) {
+				} else if (actionId == PRODUCE_ID) {
 					desiredAction.actionType = Action.ActionType.PRODUCE;
+				} else {
+					throw new ProtocolViolationException("invalid action (unknown action type): " + reader.getLine());
 				}
 
-				desiredAction.startX = Integer.parseInt(parts[1]);
-				desiredAction.startY = Integer.parseInt(parts[2]);
-				desiredAction.endX = Integer.parseInt(parts[3]);
-				desiredAction.endY = Integer.parseInt(parts[4]);
+				desiredAction.startX = reader.nextInt();
+				desiredAction.startY = reader.nextInt();
+				desiredAction.endX = reader.nextInt();
+				desiredAction.endY = reader.nextInt();
 
 				if (desiredAction.actionType == Action.ActionType.PRODUCE) {
-					int gameObjectTypeId = Integer.parseInt(parts[5]);
-					for (GameObjectType gameObjectType : GameObjectType.getAllGameObjectTypes()) {
-						if (gameObjectType.getExternalId() == gameObjectTypeId) {
-							desiredAction.produceGameObjectType = gameObjectType;
-							break;
-						}
-					}
+					desiredAction.produceGameObjectType = GameObjectType.getGameObjectTypeByExternalId(reader.nextInt());
+				} else {
+					desiredAction.produceGameObjectType = null;
 				}
 
 				boolean result = gameWorld.doAction(desiredAction);
 				if (!result) {
-					throw new ProtocolViolationException("invalid action (action is now allowed or possible): " + nextLine);
+					throw new ProtocolViolationException("invalid action (action is now allowed or possible): " + reader.getLine());
 				}
 			} catch (NumberFormatException e){
-				throw new ProtocolViolationException("invalid action (part is not a number): " + nextLine);
+				throw new ProtocolViolationException("invalid action (part is not a number): " + reader.getLine());
 			} catch (IndexOutOfBoundsException e){
 				throw new ProtocolViolationException("not enough parameters");
 			}
 		}
 	}
 
+	/**
+	 * Set the protocol version used from the next round on. This is only allowed at the start of the
+	 * first answer of the program.
+	 *
+	 * @param reader the reader positioned at the line containing the version
+	 */
+	private void chooseProtocolVersion(ProtocolReader reader) throws ProtocolViolationException {
+		if (answeredOnce) {
+			throw new ProtocolViolationException("the protocol version can only be chosen in the first round: " + reader.getLine());
+		}
+		try {
+			reader.skipValue();
+			int version = reader.nextInt();
+			if (version != 1 && version != Consts.PROTOCOL_VERSION_DELTA) {
+				throw new ProtocolViolationException("unsupported protocol version: " + reader.getLine());
+			}
+			protocolVersion = version;
+			logger.progBehaviour(id + "/" + name, "uses protocol version " + version);
+		} catch (NumberFormatException e) {
+			throw new ProtocolViolationException("invalid protocol version (not a number): " + reader.getLine());
+		} catch (IndexOutOfBoundsException e) {
+			throw new ProtocolViolationException("no protocol version provided");
+		}
+	}
+
 	/**
 	 * Perform the moves for this round
 	 */
 	@Override
 	protected void playAI() throws ProtocolViolationException {
 		try {
+			writer.clear();
 			if (process == null) {
 				try {
 					startProcess();
-					feedScenario();
 				} catch (IOException e) {
 					throw new ProtocolViolationException(e);
 				}
+				writeScenario();
+			}
+			writeRound();
+			try {
+				process.send(writer);
+			} catch (IOException e) {
+				throw new ProtocolViolationException("did not accept the input: " + e.getMessage(), e);
 			}
-			feedRound();
+			turnStart = System.nanoTime();
 			readDesiredActions();
+			finishTurn();
+			checkResources();
 			setFinishedPlaying();
 		} catch (ProtocolViolationException e){
+			violatedProtocol = true;
 			logger.progBehaviour(id + "/" + name, e.getMessage());
 			throw e;
 		}
 	}
 
 	/**
-	 * Thread to fill the Queue with the output of the process
-	 */
-	private class ProgramOutToQueueThread extends Thread {
-
-		private ArrayBlockingQueue<String> queue;
-		private BufferedReader reader;
-		private volatile boolean terminating = false;
-
-		public ProgramOutToQueueThread(ArrayBlockingQueue<String> queue, BufferedReader reader) {
-			this.queue = queue;
-			this.reader = reader;
-		}
-
-		@Override
-		public void run() {
-			try {
-				while (true) {
-					String line = reader.readLine();
-					if (line == null) {
-						// program has terminated
-						break;
-					} else {
-						queue.put(line);
-					}
-				}
-			} catch (IOException e) {
-				if (!terminating) {
-					e.printStackTrace();
-				}
-			} catch (InterruptedException e) {
-				if (!terminating) {
-					e.printStackTrace();
-				}
-			}
-		}
-
-		public boolean isTerminating() {
-			return terminating;
-		}
-
-		public void setTerminating(boolean terminating) {
-			this.terminating = terminating;
-		}
-	}
-
-	/**
-	 * Thread to pass on the stderr of the process
+	 * State of a GameObject as it was last sent to the program
 	 */
-	private class StdErrHandlerThread extends Thread {
+	private static class SentGameObject {
 		private int id;
-		private String name;
-		private BufferedReader reader;
-		private volatile boolean terminating = false;
+		private int type;
+		private int player;
+		private int positionX, positionY;
+		private int hp;
+		private boolean seen;
 
-		public StdErrHandlerThread(int id, String name, BufferedReader reader) {
+		private SentGameObject(int id, int type) {
 			this.id = id;
-			this.name = name;
-			this.reader = reader;
-		}
-
-		@Override
-		public void run() {
-			try {
-				for (int i = 0; i < Consts.EXTERNAL_MAX_STDERR_LINES; i++) {
-					String line = reader.readLine();
-					if (line == null) {
-						// program has terminated
-						break;
-					} else {
-						logger.progStdErr(id + "/" + name, line);
-					}
-				}
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
-		}
-
-		public boolean isTerminating() {
-			return terminating;
+			this.type = type;
 		}
 
-		public void setTerminating(boolean terminating) {
-			this.terminating = terminating;
+		/**
+		 * Update the state to the given GameObject
+		 *
+		 * @param gameObject the GameObject
+		 * @return true if anything changed
+		 */
+		private boolean update(GameObject gameObject) {
+			boolean changed = player != gameObject.getPlayer().getId()
+					|| positionX != gameObject.getPositionX() || positionY != gameObject.getPositionY()
+					|| hp != gameObject.getHp();
+			player = gameObject.getPlayer().getId();
+			positionX = gameObject.getPositionX();
+			positionY = gameObject.getPositionY();
+			hp = gameObject.getHp();
+			return changed;
 		}
 	}
 }
@@ -0,0 +1,431 @@
+package com.smeanox.games.sg002.player;
+
+import com.smeanox.games.sg002.log.GameLogger;
+import com.smeanox.games.sg002.util.Consts;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A running external program and the tasks reading its output. A process can be used by
+ * different ExternalAIPlayers one after another, see {@link ExternalProcessPool}.
+ * <br>
+ * The tasks reading stdout and stderr and waiting for the exit of the program run on threads
+ * shared by all processes, so finished programs do not leave threads behind.
+ *
+ * @author Benjamin Schmid
+ */
+class ExternalProcess {
+	private static final ExecutorService ioExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+		private int count = 0;
+
+		@Override
+		public synchronized Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "external-io-" + count++);
+			// the threads must not keep the application running
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	/**
+	 * Clock ticks per second used in /proc/[pid]/stat
+	 */
+	private static final int CLOCK_TICKS = 100;
+
+	private String command;
+	private Process process;
+	private long pid;
+	private long startTime;
+	private OutputStream programIn;
+	private InputStream programOut;
+	private BufferedReader programErr;
+
+	private ProtocolReader programOutReader;
+	private ProgramOutPump programOutPump;
+	private StdErrPump stdErrPump;
+	private Future<?> programOutPumpFuture;
+
+	private volatile GameLogger logger;
+	private volatile String logId;
+
+	private boolean terminating;
+	private int playedGames;
+
+	ExternalProcess(String command) {
+		this.command = command;
+		logger = GameLogger.createDummyLogger();
+		logId = "";
+	}
+
+	String getCommand() {
+		return command;
+	}
+
+	int getPlayedGames() {
+		return playedGames;
+	}
+
+	/**
+	 * Called when a game played with this process ended
+	 */
+	void finishedGame() {
+		playedGames++;
+	}
+
+	/**
+	 * Set where messages of the process are logged to
+	 *
+	 * @param logger the logger, may be null
+	 * @param logId  the id used for the messages
+	 */
+	void setLogger(GameLogger logger, String logId) {
+		this.logger = logger == null ? GameLogger.createDummyLogger() : logger;
+		this.logId = logId;
+	}
+
+	/**
+	 * Start the process and set up all reader and writer, but no data is fed to the process
+	 *
+	 * @throws IOException
+	 */
+	void start() throws IOException {
+		if (process != null) {
+			throw new IllegalStateException("the process can not be started multiple times");
+		}
+
+		logger.tech("gonna start \"" + logId + "\" with command \"" + command + "\"");
+
+		process = Runtime.getRuntime().exec(command);
+		startTime = System.nanoTime();
+		pid = readPid(process);
+		programIn = process.getOutputStream();
+		programOut = process.getInputStream();
+		programErr = new BufferedReader(new InputStreamReader(process.getErrorStream()));
+
+		programOutReader = new ProtocolReader();
+		programOutPump = new ProgramOutPump(programOutReader, programOut);
+		stdErrPump = new StdErrPump(programErr);
+
+		programOutPumpFuture = ioExecutor.submit(programOutPump);
+		ioExecutor.submit(stdErrPump);
+
+		terminating = false;
+		playedGames = 0;
+
+		logger.tech("started \"" + logId + "\"");
+	}
+
+	/**
+	 * Return the id of the given process
+	 *
+	 * @param process the process
+	 * @return the id or -1 if it is not available
+	 */
+	private static long readPid(Process process) {
+		try {
+			// Process.pid() is only available since Java 9
+			return ((Number) Process.class.getMethod("pid").invoke(process)).longValue();
+		} catch (Exception e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Measure the resources used by the process since it was started. CPU time and peak memory are
+	 * read from /proc and therefore only available on Linux.
+	 *
+	 * @return the resources used
+	 */
+	ResourceUsage measureResources() {
+		long wallTime = (System.nanoTime() - startTime) / 1000000;
+		if (pid < 0 || process == null) {
+			return new ResourceUsage(-1, wallTime, -1);
+		}
+		return new ResourceUsage(readCpuTime(), wallTime, readPeakMemory());
+	}
+
+	/**
+	 * Read the user and system time of the process from /proc/[pid]/stat
+	 *
+	 * @return the time in ms or -1
+	 */
+	private long readCpuTime() {
+		String stat = readProcLine("stat", null);
+		if (stat == null) {
+			return -1;
+		}
+		// the name of the program may contain spaces, the fields after it are utime and stime at index 11 and 12
+		String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+		try {
+			return (Long.parseLong(fields[11]) + Long.parseLong(fields[12])) * 1000 / CLOCK_TICKS;
+		} catch (NumberFormatException e) {
+			return -1;
+		} catch (IndexOutOfBoundsException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Read the peak resident memory of the process from /proc/[pid]/status
+	 *
+	 * @return the memory in kB or -1
+	 */
+	private long readPeakMemory() {
+		String line = readProcLine("status", "VmHWM:");
+		if (line == null) {
+			return -1;
+		}
+		try {
+			return Long.parseLong(line.substring("VmHWM:".length()).replace("kB", "").trim());
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Read a line of a file in /proc/[pid]
+	 *
+	 * @param file   the name of the file
+	 * @param prefix the prefix of the line or null for the first line
+	 * @return the line or null if it was not found
+	 */
+	private String readProcLine(String file, String prefix) {
+		File procFile = new File("/proc/" + pid + "/" + file);
+		if (!procFile.exists()) {
+			return null;
+		}
+		BufferedReader reader = null;
+		try {
+			reader = new BufferedReader(new FileReader(procFile));
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (prefix == null || line.startsWith(prefix)) {
+					return line;
+				}
+			}
+			return null;
+		} catch (IOException e) {
+			// the process exited in the meantime
+			return null;
+		} finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Terminate the process and close all reader and writer
+	 *
+	 * @throws IOException
+	 */
+	void terminate() throws IOException {
+		if (process == null) {
+			return;
+		}
+
+		if (terminating) {
+			return;
+		}
+		terminating = true;
+
+		final GameLogger logger = this.logger;
+		final String logId = this.logId;
+		final Process process = this.process;
+
+		logger.tech("gonna terminate \"" + logId + "\"");
+
+		programOutPump.setTerminating(true);
+		programOutPumpFuture.cancel(true);
+		stdErrPump.setTerminating(true);
+		// no need to interrupt stdErrPump, it will be terminated because stderr is closed
+
+		// the task only logs the exit status, killing the process must not depend on it being started in time.
+		// Whoever sets reported first logs, so the process is either reported as exited or as killed
+		final AtomicBoolean reported = new AtomicBoolean(false);
+		Future<?> terminator = ioExecutor.submit(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					int exitStatus = process.waitFor();
+					if (reported.compareAndSet(false, true)) {
+						logger.progBehaviour(logId, "exited with status " + exitStatus);
+					}
+				} catch (InterruptedException ignored) {
+				}
+			}
+		});
+
+		try {
+			terminator.get(50, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			if (reported.compareAndSet(false, true)) {
+				process.destroy();
+				logger.progBehaviour(logId, "did not exit properly and was therefore killed");
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e);
+		}
+
+		programOut.close();
+		programIn.close();
+		programErr.close();
+
+		this.process = null;
+	}
+
+	/**
+	 * Whether the process is still running and its output is read
+	 *
+	 * @return true if it is running
+	 */
+	boolean isRunning() {
+		return process != null && !terminating && !programOutPumpFuture.isDone();
+	}
+
+	/**
+	 * Send everything written to the given writer to the process in one write
+	 *
+	 * @param writer the writer
+	 * @throws IOException if the process does not accept input anymore
+	 */
+	void send(ProtocolWriter writer) throws IOException {
+		writer.writeTo(programIn);
+	}
+
+	/**
+	 * Return the reader containing the output of the process
+	 *
+	 * @return the reader
+	 */
+	ProtocolReader getReader() {
+		return programOutReader;
+	}
+
+	/**
+	 * Prepare the process for a new game: the process receives {@link Consts#NEW_GAME_ID} and has
+	 * to answer with the same line. Output left over from the last game is discarded.
+	 *
+	 * @return true if the process answered correctly
+	 */
+	boolean startNewGame() {
+		if (!isRunning()) {
+			return false;
+		}
+		programOutReader.clear();
+		try {
+			send(new ProtocolWriter().write(Consts.NEW_GAME_ID).endLine());
+			if (!programOutReader.awaitLine(Consts.EXTERNAL_NEW_GAME_TIMEOUT)) {
+				logger.progBehaviour(logId, "did not answer to a new game");
+				return false;
+			}
+			if (!programOutReader.lineEquals(Consts.NEW_GAME_ID)) {
+				logger.progBehaviour(logId, "answered to a new game with: " + programOutReader.getLine());
+				return false;
+			}
+			return true;
+		} catch (IOException e) {
+			logger.progBehaviour(logId, "could not receive a new game: " + e.getMessage());
+			return false;
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Task to pass the output of the process to the reader
+	 */
+	private class ProgramOutPump implements Runnable {
+
+		private ProtocolReader reader;
+		private InputStream in;
+		private volatile boolean terminating = false;
+
+		public ProgramOutPump(ProtocolReader reader, InputStream in) {
+			this.reader = reader;
+			this.in = in;
+		}
+
+		@Override
+		public void run() {
+			try {
+				reader.readFrom(in);
+			} catch (IOException e) {
+				if (!terminating) {
+					e.printStackTrace();
+				}
+			} catch (InterruptedException e) {
+				if (!terminating) {
+					e.printStackTrace();
+				}
+			}
+		}
+
+		public boolean isTerminating() {
+			return terminating;
+		}
+
+		public void setTerminating(boolean terminating) {
+			this.terminating = terminating;
+		}
+	}
+
+	/**
+	 * Task to pass on the stderr of the process
+	 */
+	private class StdErrPump implements Runnable {
+		private BufferedReader reader;
+		private volatile boolean terminating = false;
+
+		public StdErrPump(BufferedReader reader) {
+			this.reader = reader;
+		}
+
+		@Override
+		public void run() {
+			try {
+				for (int i = 0; i < Consts.EXTERNAL_MAX_STDERR_LINES; i++) {
+					String line = reader.readLine();
+					if (line == null) {
+						// program has terminated
+						break;
+					} else {
+						logger.progStdErr(logId, line);
+					}
+				}
+			} catch (IOException e) {
+				if (!terminating) {
+					e.printStackTrace();
+				}
+			}
+		}
+
+		public boolean isTerminating() {
+			return terminating;
+		}
+
+		public void setTerminating(boolean terminating) {
+			this.terminating = terminating;
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package com.smeanox.games.sg002.player;
+
+import com.smeanox.games.sg002.log.GameLogger;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+/**
+ * Keeps the processes of external AIs running between games, so a program does not have to be
+ * started again for every game. Only used for AIs whose command starts with
+ * {@link com.smeanox.games.sg002.util.Consts#COMMAND_POOLED_PREFIX}.
+ * <br>
+ * A process is only reused if it answers to the new game message, it is restarted after
+ * a given number of games or if it violated the protocol.
+ *
+ * @author Benjamin Schmid
+ */
+public class ExternalProcessPool {
+	private int maxGames;
+	private Map<String, LinkedList<ExternalProcess>> idleProcesses;
+	private boolean closed;
+
+	/**
+	 * Create a new pool
+	 *
+	 * @param maxGames the number of games a process may play before it is restarted
+	 */
+	public ExternalProcessPool(int maxGames) {
+		this.maxGames = maxGames;
+		idleProcesses = new HashMap<String, LinkedList<ExternalProcess>>();
+		closed = false;
+	}
+
+	/**
+	 * Return a process for the given command that is ready for a new game. An idle process is
+	 * reused if it passes the health check, otherwise a new one is started.
+	 *
+	 * @param command the command
+	 * @param logger  the logger of the new game
+	 * @param logId   the id used for log messages
+	 * @return the process
+	 * @throws IOException if a new process could not be started
+	 */
+	ExternalProcess acquire(String command, GameLogger logger, String logId) throws IOException {
+		ExternalProcess process;
+		while ((process = pollIdle(command)) != null) {
+			process.setLogger(logger, logId);
+			if (process.startNewGame()) {
+				logger.tech("reusing \"" + logId + "\" after " + process.getPlayedGames() + " games");
+				return process;
+			}
+			process.terminate();
+		}
+
+		process = new ExternalProcess(command);
+		process.setLogger(logger, logId);
+		process.start();
+		return process;
+	}
+
+	/**
+	 * Return a process after its game ended. It is terminated instead if it played enough games,
+	 * is not running anymore or the pool was closed.
+	 *
+	 * @param process the process
+	 * @throws IOException
+	 */
+	void release(ExternalProcess process) throws IOException {
+		process.finishedGame();
+		process.setLogger(null, "");
+		synchronized (this) {
+			if (!closed && process.isRunning() && process.getPlayedGames() < maxGames) {
+				LinkedList<ExternalProcess> idle = idleProcesses.get(process.getCommand());
+				if (idle == null) {
+					idle = new LinkedList<ExternalProcess>();
+					idleProcesses.put(process.getCommand(), idle);
+				}
+				idle.add(process);
+				return;
+			}
+		}
+		process.terminate();
+	}
+
+	/**
+	 * Terminate all idle processes, processes released afterwards are terminated as well
+	 */
+	public void close() {
+		LinkedList<ExternalProcess> processes = new LinkedList<ExternalProcess>();
+		synchronized (this) {
+			closed = true;
+			for (LinkedList<ExternalProcess> idle : idleProcesses.values()) {
+				processes.addAll(idle);
+			}
+			idleProcesses.clear();
+		}
+		for (ExternalProcess process : processes) {
+			try {
+				process.terminate();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private synchronized ExternalProcess pollIdle(String command) {
+		LinkedList<ExternalProcess> idle = idleProcesses.get(command);
+		if (idle == null || idle.isEmpty()) {
+			return null;
+		}
+		return idle.removeFirst();
+	}
+}
@@ -1,9 +1,10 @@
 package com.smeanox.games.sg002.player;
 
-import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.RandomXS128;
 import com.smeanox.games.sg002.data.Point;
 import com.smeanox.games.sg002.util.Consts;
+import com.smeanox.games.sg002.world.Action;
+import com.smeanox.games.sg002.world.ActionBuffer;
 import com.smeanox.games.sg002.world.GameObject;
 import com.smeanox.games.sg002.world.GameObjectType;
 
@@ -15,6 +16,19 @@ import java.util.LinkedList;
  * @author Benjamin Schmid
  */
 public abstract class LocalAIPlayer extends AIPlayer {
+	private final ActionBuffer legalActions = new ActionBuffer();
+
+	/**
+	 * Return all legal actions of this player. The returned buffer is reused by the next call
+	 *
+	 * @return the legal actions
+	 */
+	protected ActionBuffer getLegalActions() {
+		legalActions.clear();
+		gameWorld.generateLegalActions(this, legalActions);
+		return legalActions;
+	}
+
 	/**
 	 * Count all objects of the given player
 	 *
@@ -22,19 +36,7 @@ public abstract class LocalAIPlayer extends AIPlayer {
 	 * @return the number of objects
 	 */
 	protected int countObjects(Player player) {
-		int count = 0;
-		for (int y = 0; y < gameWorld.getMapSizeY(); y++) {
-			for (int x = 0; x < gameWorld.getMapSizeX(); x++) {
-				GameObject gameObject = gameWorld.getWorldGameObject(x, y);
-				if (gameObject == null) {
-					continue;
-				}
-				if (gameObject.getPlayer() == player) {
-					count++;
-				}
-			}
-		}
-		return count;
+		return gameWorld.countGameObjects(player);
 	}
 
 	/**
@@ -54,20 +56,7 @@ public abstract class LocalAIPlayer extends AIPlayer {
 	 * @return the number of objects
 	 */
 	protected int countObjects(Player player, GameObjectType gameObjectType) {
-		int count = 0;
-		for (int y = 0; y < gameWorld.getMapSizeY(); y++) {
-			for (int x = 0; x < gameWorld.getMapSizeX(); x++) {
-				GameObject gameObject = gameWorld.getWorldGameObject(x, y);
-				if (gameObject == null) {
-					continue;
-				}
-				if (gameObject.getPlayer() == player
-						&& gameObject.getGameObjectType() == gameObjectType) {
-					count++;
-				}
-			}
-		}
-		return count;
+		return gameWorld.countGameObjects(player, gameObjectType);
 	}
 
 	/**
@@ -155,14 +144,12 @@ public abstract class LocalAIPlayer extends AIPlayer {
 		if (gameWorld.getWorldGameObject(pos.x, pos.y) == null) {
 			return sol;
 		}
-		GameObjectType gameObjectType = gameWorld.getWorldGameObject(pos.x, pos.y).getGameObjectType();
-		for (int y = pos.y - gameObjectType.getRadiusProduceMax();
-			 y <= pos.y + gameObjectType.getRadiusProduceMax(); y++) {
-			for (int x = pos.x - gameObjectType.getRadiusProduceMax();
-				 x <= pos.x + gameObjectType.getRadiusProduceMax(); x++) {
-				if (gameWorld.canProduce(pos.x, pos.y, x, y, produceGameObjectType)) {
-					sol.add(new Point(x, y));
-				}
+		int[] offsets = gameWorld.getWorldGameObject(pos.x, pos.y).getOffsets(Action.ActionType.PRODUCE);
+		for (int i = 0; i < offsets.length; i += 2) {
+			int x = pos.x + offsets[i];
+			int y = pos.y + offsets[i + 1];
+			if (gameWorld.canProduce(pos.x, pos.y, x, y, produceGameObjectType)) {
+				sol.add(new Point(x, y));
 			}
 		}
 		return sol;
@@ -195,7 +182,7 @@ public abstract class LocalAIPlayer extends AIPlayer {
 		if (allFields.isEmpty()) {
 			return null;
 		}
-		return allFields.get(MathUtils.random(allFields.size() - 1));
+		return allFields.get(random(allFields.size() - 1));
 	}
 
 	/**
@@ -209,14 +196,12 @@ public abstract class LocalAIPlayer extends AIPlayer {
 		if (gameWorld.getWorldGameObject(pos.x, pos.y) == null) {
 			return sol;
 		}
-		GameObjectType gameObjectType = gameWorld.getWorldGameObject(pos.x, pos.y).getGameObjectType();
-		for (int y = pos.y - gameObjectType.getRadiusWalkMax();
-			 y <= pos.y + gameObjectType.getRadiusWalkMax(); y++) {
-			for (int x = pos.x - gameObjectType.getRadiusWalkMax();
-				 x <= pos.x + gameObjectType.getRadiusWalkMax(); x++) {
-				if (gameWorld.canMove(pos.x, pos.y, x, y)) {
-					sol.add(new Point(x, y));
-				}
+		int[] offsets = gameWorld.getWorldGameObject(pos.x, pos.y).getOffsets(Action.ActionType.MOVE);
+		for (int i = 0; i < offsets.length; i += 2) {
+			int x = pos.x + offsets[i];
+			int y = pos.y + offsets[i + 1];
+			if (gameWorld.canMove(pos.x, pos.y, x, y)) {
+				sol.add(new Point(x, y));
 			}
 		}
 		return sol;
@@ -233,7 +218,7 @@ public abstract class LocalAIPlayer extends AIPlayer {
 		if (allFields.isEmpty()) {
 			return null;
 		}
-		return allFields.get(MathUtils.random(allFields.size() - 1));
+		return allFields.get(random(allFields.size() - 1));
 	}
 
 	/**
@@ -247,14 +232,12 @@ public abstract class LocalAIPlayer extends AIPlayer {
 		if (gameWorld.getWorldGameObject(pos.x, pos.y) == null) {
 			return sol;
 		}
-		GameObjectType gameObjectType = gameWorld.getWorldGameObject(pos.x, pos.y).getGameObjectType();
-		for (int y = pos.y - gameObjectType.getRadiusFightMax();
-			 y <= pos.y + gameObjectType.getRadiusFightMax(); y++) {
-			for (int x = pos.x - gameObjectType.getRadiusFightMax();
-				 x <= pos.x + gameObjectType.getRadiusFightMax(); x++) {
-				if (gameWorld.canFight(pos.x, pos.y, x, y)) {
-					sol.add(new Point(x, y));
-				}
+		int[] offsets = gameWorld.getWorldGameObject(pos.x, pos.y).getOffsets(Action.ActionType.FIGHT);
+		for (int i = 0; i < offsets.length; i += 2) {
+			int x = pos.x + offsets[i];
+			int y = pos.y + offsets[i + 1];
+			if (gameWorld.canFight(pos.x, pos.y, x, y)) {
+				sol.add(new Point(x, y));
 			}
 		}
 		return sol;
@@ -271,6 +254,6 @@ public abstract class LocalAIPlayer extends AIPlayer {
 		if (allFields.isEmpty()) {
 			return null;
 		}
-		return allFields.get(MathUtils.random(allFields.size() - 1));
+		return allFields.get(random(allFields.size() - 1));
 	}
 }
@@ -9,7 +9,8 @@ import com.smeanox.games.sg002.world.GameController;
 import com.smeanox.games.sg002.world.GameWorld;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * a player that can play the game
@@ -20,7 +21,7 @@ public abstract class Player {
 	protected GameController gameController;
 	protected GameWorld gameWorld;
 
-	protected static HashMap<Integer, Player> idToPlayer = new HashMap<Integer, Player>();
+	protected static Map<Integer, Player> idToPlayer = new ConcurrentHashMap<Integer, Player>();
 
 	protected int id = -1;
 	protected String name;
@@ -58,6 +59,16 @@ public abstract class Player {
 	 */
 	public abstract void update(float delta);
 
+	/**
+	 * Finish the current round right away if the player already decided on all his actions,
+	 * without waiting for any delay
+	 *
+	 * @return true if the round was finished
+	 */
+	public boolean finishRoundNow() {
+		return false;
+	}
+
 	/**
 	 * Propose the action to be performed (e.g. the GUI can propose an action)
 	 *
@@ -0,0 +1,294 @@
+package com.smeanox.games.sg002.player;
+
+import com.smeanox.games.sg002.util.Consts;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Buffers the output of an external program and parses it line by line without creating Strings.
+ * <br>
+ * One thread reads the output of the program with {@link #readFrom(InputStream)}, the player waits for
+ * a complete line with {@link #awaitLine(long)} and reads its values with {@link #nextInt()}.
+ * Values are separated by one or more spaces, like the lines written by the {@link ProtocolWriter}.
+ * <br>
+ * The buffer is a ring without locks: only the reading thread advances {@link #written} and only
+ * the player advances {@link #consumed}, a waiting side is parked and woken up by the other one.
+ *
+ * @author Benjamin Schmid
+ */
+class ProtocolReader {
+	private final byte[] buffer;
+	private final int mask;
+
+	// total number of bytes written to and consumed from the buffer
+	private volatile long written;
+	private volatile long consumed;
+	private volatile boolean closed;
+	private volatile Thread waitingProducer;
+	private volatile Thread waitingConsumer;
+
+	// only used by the consumer, [lineStart, lineEnd) is the current line
+	private long lineStart;
+	private long lineEnd;
+	private long position;
+	private boolean hasLine;
+
+	ProtocolReader() {
+		if (Integer.bitCount(Consts.EXTERNAL_OUTPUT_BUFFER_SIZE) != 1) {
+			throw new IllegalStateException("the size of the output buffer has to be a power of two");
+		}
+		buffer = new byte[Consts.EXTERNAL_OUTPUT_BUFFER_SIZE];
+		mask = buffer.length - 1;
+		written = 0;
+		consumed = 0;
+		closed = false;
+		hasLine = false;
+	}
+
+	/**
+	 * Copy everything from the given stream into the buffer until the stream ends. Blocks while the
+	 * buffer is full.
+	 *
+	 * @param in the stream
+	 * @throws IOException          if the stream could not be read
+	 * @throws InterruptedException if the thread was interrupted while waiting for space
+	 */
+	void readFrom(InputStream in) throws IOException, InterruptedException {
+		byte[] chunk = new byte[8192];
+		try {
+			while (true) {
+				int read = in.read(chunk);
+				if (read < 0) {
+					// program has terminated
+					break;
+				}
+				append(chunk, read);
+			}
+		} finally {
+			closed = true;
+			LockSupport.unpark(waitingConsumer);
+		}
+	}
+
+	private void append(byte[] chunk, int length) throws InterruptedException {
+		int offset = 0;
+		while (offset < length) {
+			long free = buffer.length - (written - consumed);
+			while (free == 0) {
+				waitingProducer = Thread.currentThread();
+				if (buffer.length - (written - consumed) == 0) {
+					LockSupport.park(this);
+				}
+				waitingProducer = null;
+				if (Thread.interrupted()) {
+					throw new InterruptedException();
+				}
+				free = buffer.length - (written - consumed);
+			}
+			int index = (int) written & mask;
+			int count = (int) Math.min(Math.min(length - offset, free), buffer.length - index);
+			System.arraycopy(chunk, offset, buffer, index, count);
+			written += count;
+			offset += count;
+			LockSupport.unpark(waitingConsumer);
+		}
+	}
+
+	/**
+	 * Wait until a complete line was printed and make it the current line. The rest of the last
+	 * line is skipped.
+	 *
+	 * @param timeout the maximal time to wait in ms
+	 * @return true if there is a line, false if none was printed within the timeout or the program ended
+	 * @throws InterruptedException
+	 */
+	boolean awaitLine(long timeout) throws InterruptedException {
+		if (hasLine) {
+			hasLine = false;
+			consume(Math.min(lineEnd + 1, written));
+		}
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+		long searched = consumed;
+		while (true) {
+			long available = written;
+			for (; searched < available; searched++) {
+				if (buffer[(int) searched & mask] == '\n') {
+					return startLine(searched);
+				}
+			}
+			if (closed) {
+				if (written != available) {
+					continue;
+				}
+				// the last line does not need a line break
+				return consumed < available && startLine(available);
+			}
+			long left = deadline - System.nanoTime();
+			if (left <= 0) {
+				return false;
+			}
+			waitingConsumer = Thread.currentThread();
+			if (written == available && !closed) {
+				LockSupport.parkNanos(this, left);
+			}
+			waitingConsumer = null;
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+		}
+	}
+
+	private boolean startLine(long newLineEnd) {
+		lineStart = consumed;
+		lineEnd = newLineEnd;
+		position = lineStart;
+		hasLine = true;
+		return true;
+	}
+
+	private void consume(long newConsumed) {
+		consumed = newConsumed;
+		LockSupport.unpark(waitingProducer);
+	}
+
+	/**
+	 * Discard all buffered output
+	 */
+	void clear() {
+		hasLine = false;
+		consume(written);
+	}
+
+	/**
+	 * Whether the program ended and all its output was read
+	 *
+	 * @return true if no further line will be available
+	 */
+	boolean isClosed() {
+		return closed && !hasLine && consumed == written;
+	}
+
+	private byte byteAt(long index) {
+		return buffer[(int) index & mask];
+	}
+
+	/**
+	 * Whether the current line starts with the given ASCII text
+	 *
+	 * @param prefix the text
+	 * @return true if it starts with the text
+	 */
+	boolean startsWith(String prefix) {
+		int length = prefix.length();
+		if (lineEnd - lineStart < length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (byteAt(lineStart + i) != prefix.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Whether the current line equals the given ASCII text, ignoring a carriage return at the end
+	 *
+	 * @param text the text
+	 * @return true if they are equal
+	 */
+	boolean lineEquals(String text) {
+		return getLineLength() == text.length() && startsWith(text);
+	}
+
+	/**
+	 * Skip the next value of the current line
+	 *
+	 * @throws IndexOutOfBoundsException if there is no further value in the line
+	 */
+	void skipValue() {
+		skipSpaces();
+		if (position == lineEnd) {
+			throw new IndexOutOfBoundsException("no further value in the line");
+		}
+		while (position < lineEnd && !isSpace(byteAt(position))) {
+			position++;
+		}
+	}
+
+	/**
+	 * Parse the next value of the current line as integer, like {@link Integer#parseInt(String)}
+	 *
+	 * @return the value
+	 * @throws IndexOutOfBoundsException if there is no further value in the line
+	 * @throws NumberFormatException     if the value is not a number
+	 */
+	int nextInt() {
+		skipSpaces();
+		if (position == lineEnd) {
+			throw new IndexOutOfBoundsException("no further value in the line");
+		}
+		boolean negative = false;
+		if (byteAt(position) == '-' || byteAt(position) == '+') {
+			negative = byteAt(position) == '-';
+			position++;
+		}
+		// accumulate negatively so Integer.MIN_VALUE can be parsed
+		int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+		int multiplyLimit = limit / 10;
+		int result = 0;
+		int digits = 0;
+		while (position < lineEnd && !isSpace(byteAt(position))) {
+			int digit = byteAt(position) - '0';
+			if (digit < 0 || digit > 9 || result < multiplyLimit) {
+				throw new NumberFormatException("not a number");
+			}
+			result *= 10;
+			if (result < limit + digit) {
+				throw new NumberFormatException("not a number");
+			}
+			result -= digit;
+			digits++;
+			position++;
+		}
+		if (digits == 0) {
+			throw new NumberFormatException("not a number");
+		}
+		return negative ? result : -result;
+	}
+
+	/**
+	 * Return the current line, only used for messages
+	 *
+	 * @return the line
+	 */
+	String getLine() {
+		int length = getLineLength();
+		char[] chars = new char[length];
+		for (int i = 0; i < length; i++) {
+			chars[i] = (char) (byteAt(lineStart + i) & 0xff);
+		}
+		return new String(chars);
+	}
+
+	private int getLineLength() {
+		int length = (int) (lineEnd - lineStart);
+		if (length > 0 && byteAt(lineEnd - 1) == '\r') {
+			length--;
+		}
+		return length;
+	}
+
+	private void skipSpaces() {
+		while (position < lineEnd && isSpace(byteAt(position))) {
+			position++;
+		}
+	}
+
+	private static boolean isSpace(byte b) {
+		return b == ' ' || b == '\r' || b == '\t';
+	}
+}
@@ -0,0 +1,147 @@
+package com.smeanox.games.sg002.player;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Encodes the lines sent to an external program into a reusable byte buffer. Values are separated
+ * by one space, integers are formatted directly into the buffer without creating Strings.
+ *
+ * @author Benjamin Schmid
+ */
+class ProtocolWriter {
+	private byte[] buffer;
+	private int size;
+	private boolean lineStarted;
+
+	ProtocolWriter() {
+		buffer = new byte[4096];
+		size = 0;
+		lineStarted = false;
+	}
+
+	/**
+	 * Discard everything written so far, the buffer is kept
+	 */
+	void clear() {
+		size = 0;
+		lineStarted = false;
+	}
+
+	/**
+	 * Return the number of bytes written so far
+	 *
+	 * @return the number of bytes
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Append an integer to the current line
+	 *
+	 * @param value the value
+	 * @return this
+	 */
+	ProtocolWriter write(int value) {
+		separate();
+		ensureCapacity(11);
+		if (value == Integer.MIN_VALUE) {
+			return writeChars("-2147483648");
+		}
+		if (value < 0) {
+			buffer[size++] = '-';
+			value = -value;
+		}
+		int start = size;
+		do {
+			buffer[size++] = (byte) ('0' + value % 10);
+			value /= 10;
+		} while (value != 0);
+		// the digits were written from the lowest one
+		for (int i = start, j = size - 1; i < j; i++, j--) {
+			byte tmp = buffer[i];
+			buffer[i] = buffer[j];
+			buffer[j] = tmp;
+		}
+		return this;
+	}
+
+	/**
+	 * Append a String to the current line. The String may only contain ASCII characters.
+	 *
+	 * @param value the value
+	 * @return this
+	 */
+	ProtocolWriter write(String value) {
+		separate();
+		return writeChars(value);
+	}
+
+	/**
+	 * Finish the current line
+	 *
+	 * @return this
+	 */
+	ProtocolWriter endLine() {
+		ensureCapacity(1);
+		buffer[size++] = '\n';
+		lineStarted = false;
+		return this;
+	}
+
+	/**
+	 * Write a line containing only the given integer
+	 *
+	 * @param value the value
+	 * @return this
+	 */
+	ProtocolWriter writeLine(int value) {
+		return write(value).endLine();
+	}
+
+	/**
+	 * Write everything written so far to the given stream and flush it
+	 *
+	 * @param out the stream
+	 * @throws IOException
+	 */
+	void writeTo(OutputStream out) throws IOException {
+		out.write(buffer, 0, size);
+		out.flush();
+	}
+
+	@Override
+	public String toString() {
+		char[] chars = new char[size];
+		for (int i = 0; i < size; i++) {
+			chars[i] = (char) buffer[i];
+		}
+		return new String(chars);
+	}
+
+	private ProtocolWriter writeChars(String value) {
+		int length = value.length();
+		ensureCapacity(length);
+		for (int i = 0; i < length; i++) {
+			buffer[size++] = (byte) value.charAt(i);
+		}
+		return this;
+	}
+
+	private void separate() {
+		if (lineStarted) {
+			ensureCapacity(1);
+			buffer[size++] = ' ';
+		}
+		lineStarted = true;
+	}
+
+	private void ensureCapacity(int additional) {
+		if (size + additional > buffer.length) {
+			byte[] newBuffer = new byte[Math.max(buffer.length * 2, size + additional)];
+			System.arraycopy(buffer, 0, newBuffer, 0, size);
+			buffer = newBuffer;
+		}
+	}
+}
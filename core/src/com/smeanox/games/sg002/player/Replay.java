@@ -0,0 +1,122 @@
+package com.smeanox.games.sg002.player;
+
+import com.smeanox.games.sg002.util.Consts;
+import com.smeanox.games.sg002.world.GameController;
+import com.smeanox.games.sg002.world.GameWorld;
+import com.smeanox.games.sg002.world.actionHandler.NextPlayerHandler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * A replay that can jump to any round
+ * <br>
+ * While the replay is played a snapshot of the GameWorld is kept as keyframe at the start of every
+ * {@link Consts#REPLAY_KEYFRAME_INTERVAL}th round. To jump to a round the last keyframe before it is
+ * restored and at most that many rounds are replayed from there. Rounds after the last keyframe are
+ * replayed from the current round on, adding their keyframes on the way.
+ *
+ * @author Benjamin Schmid
+ */
+public class Replay {
+	private GameController gameController;
+	private ReplaySource replaySource;
+	private ArrayList<GameWorld> keyframes;
+
+	/**
+	 * Create a new instance
+	 *
+	 * @param gameController the GameController playing the replay with ReplayPlayers
+	 * @param replaySource   the source all ReplayPlayers read from
+	 */
+	Replay(GameController gameController, ReplaySource replaySource) {
+		this.gameController = gameController;
+		this.replaySource = replaySource;
+		keyframes = new ArrayList<GameWorld>();
+
+		gameController.addNextPlayerHandler(new NextPlayerHandler() {
+			@Override
+			public void onNextPlayer(Player nextPlayer) {
+				addKeyframe();
+			}
+		});
+	}
+
+	/**
+	 * Save a keyframe if the round about to be played starts a new interval
+	 */
+	private void addKeyframe() {
+		int round = replaySource.getRound() + 1;
+		if (round % Consts.REPLAY_KEYFRAME_INTERVAL == 0
+				&& round / Consts.REPLAY_KEYFRAME_INTERVAL == keyframes.size()) {
+			keyframes.add(gameController.getGameWorld().snapshot());
+		}
+	}
+
+	public GameController getGameController() {
+		return gameController;
+	}
+
+	/**
+	 * Return the index of the round played last
+	 *
+	 * @return the index or -1 if no round was played yet
+	 */
+	public int getRound() {
+		return replaySource.getRound();
+	}
+
+	/**
+	 * Jump to the given round, afterwards its actions are performed and the replay continues from there.
+	 * If the replay has less rounds it stops at the last one.
+	 *
+	 * @param round the index of the round
+	 */
+	public void seekRound(int round) {
+		if (keyframes.isEmpty()) {
+			return;
+		}
+		round = Math.max(round, 0);
+		int keyframe = Math.min(round / Consts.REPLAY_KEYFRAME_INTERVAL, keyframes.size() - 1);
+		int current = getRound();
+		// continue from the current round if that is not further away than the keyframe
+		if (current < keyframe * Consts.REPLAY_KEYFRAME_INTERVAL || current > round || gameController.isGameEnded()) {
+			try {
+				replaySource.seekRound(keyframe * Consts.REPLAY_KEYFRAME_INTERVAL);
+			} catch (IOException e) {
+				gameController.getLogger().tech("could not seek in replay: " + e.getMessage());
+				return;
+			}
+			gameController.restoreRound(keyframes.get(keyframe));
+		}
+		while (getRound() < round && !gameController.isGameEnded()
+				&& gameController.getActivePlayer().finishRoundNow()) {
+			// the next round was started by finishing this one
+		}
+	}
+
+	/**
+	 * Jump to the round before the current one
+	 */
+	public void stepBack() {
+		seekRound(getRound() - 1);
+	}
+
+	/**
+	 * Jump to the round after the current one
+	 */
+	public void stepForward() {
+		seekRound(getRound() + 1);
+	}
+
+	/**
+	 * Close the replay file
+	 */
+	public void close() {
+		try {
+			replaySource.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+}
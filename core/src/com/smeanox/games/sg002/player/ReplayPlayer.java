@@ -2,50 +2,92 @@ package com.smeanox.games.sg002.player;
 
 import com.smeanox.games.sg002.world.Action;
 
+import java.io.IOException;
+import java.util.Iterator;
 import java.util.LinkedList;
 
 /**
  * A player that replays a already played game using a log
+ * <br>
+ * All ReplayPlayers of a game share one {@link ReplaySource}, the active player reads the next round
+ * from it when it is his turn. Alternatively the actions of each player can be set directly with
+ * {@link #setActions(LinkedList)}.
+ * <br>
+ * If the log contains the checksum of the GameWorld after a round it is compared after the actions of
+ * the round were performed. The replay stops at the first round that differs.
  *
  * @author Benjamin Schmid
  */
 public class ReplayPlayer extends AIPlayer {
 
-	private LinkedList<LinkedList<Action>> actions;
-	private int activeRound = 0;
+	private ReplaySource replaySource;
+	private Iterator<LinkedList<Action>> actions;
 
 	@Override
 	protected void playAI() throws ProtocolViolationException {
-		if(actions == null || activeRound >= actions.size()){
+		LinkedList<Action> roundActions = nextRoundActions();
+		if(roundActions == null){
+			// the replay stops here, unless it jumps to another round
+			finishedPlaying = false;
 			return;
 		}
-		for(Action action : actions.get(activeRound)){
+		for(Action action : roundActions){
 			if(!gameWorld.doAction(action)){
 				gameController.getLogger().progBehaviour(id + "/" + name, "invalid replay: " + action);
 			}
 		}
-
-		activeRound++;
+		if(actions == null && replaySource.hasRoundChecksum()
+				&& replaySource.getRoundChecksum() != gameWorld.getChecksum()){
+			// the state differs from the logged game, the following rounds would not make sense
+			gameController.getLogger().progBehaviour(id + "/" + name, "replay diverged in round "
+					+ replaySource.getRound() + ": expected checksum "
+					+ Long.toHexString(replaySource.getRoundChecksum()) + " but was "
+					+ Long.toHexString(gameWorld.getChecksum()));
+			finishedPlaying = false;
+			return;
+		}
 
 		setFinishedPlaying();
 	}
 
-	public LinkedList<LinkedList<Action>> getActions() {
-		return actions;
+	/**
+	 * Read the actions of the next round of this player
+	 *
+	 * @return the actions or null if there are no more rounds
+	 */
+	private LinkedList<Action> nextRoundActions() {
+		if(actions != null){
+			return actions.hasNext() ? actions.next() : null;
+		}
+		if(replaySource == null){
+			return null;
+		}
+		try {
+			if(!replaySource.nextRound()){
+				return null;
+			}
+		} catch (IOException e) {
+			gameController.getLogger().progBehaviour(id + "/" + name, "could not read replay: " + e.getMessage());
+			return null;
+		}
+		if(replaySource.getRoundPlayer() != id){
+			gameController.getLogger().progBehaviour(id + "/" + name, "invalid replay: round "
+					+ replaySource.getRound() + " was played by player " + replaySource.getRoundPlayer());
+			return null;
+		}
+		return replaySource.getRoundActions();
 	}
 
+	/**
+	 * Set the actions of all rounds of this player
+	 *
+	 * @param actions the actions of each round
+	 */
 	public void setActions(LinkedList<LinkedList<Action>> actions) {
-		this.actions = actions;
-	}
-
-	public int getActiveRound() {
-		return activeRound;
+		this.actions = actions.iterator();
 	}
 
-	public void setActiveRound(int activeRound) {
-		if(activeRound < 0 || actions != null && activeRound >= actions.size()){
-			return;
-		}
-		this.activeRound = activeRound;
+	void setReplaySource(ReplaySource replaySource) {
+		this.replaySource = replaySource;
 	}
 }
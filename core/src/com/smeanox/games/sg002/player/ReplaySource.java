@@ -0,0 +1,182 @@
+package com.smeanox.games.sg002.player;
+
+import com.smeanox.games.sg002.data.Point;
+import com.smeanox.games.sg002.util.Consts;
+import com.smeanox.games.sg002.world.Action;
+import com.smeanox.games.sg002.world.GameObjectType;
+import com.smeanox.games.sg002.world.Rules;
+
+import java.io.IOException;
+import java.util.LinkedList;
+
+/**
+ * Read the rounds of a replay one after another, so only the current round has to be kept in memory
+ *
+ * @author Benjamin Schmid
+ */
+abstract class ReplaySource {
+	private static final int MOVE_ID = Integer.parseInt(Consts.MOVE_ID);
+	private static final int FIGHT_ID = Integer.parseInt(Consts.FIGHT_ID);
+	private static final int PRODUCE_ID = Integer.parseInt(Consts.PRODUCE_ID);
+
+	protected int startMoney;
+	protected int mapSizeX;
+	protected int mapSizeY;
+	protected Rules rules;
+	protected String[] playerNames;
+	protected Point[] goldPos;
+	protected Point[] startPos;
+
+	protected int round = -1;
+	protected int roundPlayer;
+	protected LinkedList<Action> roundActions;
+	protected boolean roundHasChecksum;
+	protected long roundChecksum;
+
+	public int getStartMoney() {
+		return startMoney;
+	}
+
+	public int getMapSizeX() {
+		return mapSizeX;
+	}
+
+	public int getMapSizeY() {
+		return mapSizeY;
+	}
+
+	/**
+	 * Return the rules the game was played with
+	 *
+	 * @return the rules
+	 */
+	public Rules getRules() {
+		return rules;
+	}
+
+	public String[] getPlayerNames() {
+		return playerNames;
+	}
+
+	public Point[] getGoldPos() {
+		return goldPos;
+	}
+
+	public Point[] getStartPos() {
+		return startPos;
+	}
+
+	/**
+	 * Read the next round
+	 *
+	 * @return false if there are no more rounds
+	 * @throws IOException
+	 */
+	public boolean nextRound() throws IOException {
+		roundActions = new LinkedList<Action>();
+		roundHasChecksum = false;
+		if (!readRound()) {
+			roundActions = null;
+			return false;
+		}
+		round++;
+		return true;
+	}
+
+	/**
+	 * Read the next round into {@link #roundPlayer}, {@link #roundActions} and if it has one
+	 * {@link #roundChecksum}
+	 *
+	 * @return false if there are no more rounds
+	 * @throws IOException
+	 */
+	protected abstract boolean readRound() throws IOException;
+
+	/**
+	 * Continue reading at the given round, the next call to {@link #nextRound()} reads it. Only the
+	 * rounds up to the one after the last round read can be sought.
+	 *
+	 * @param round the index of the round
+	 * @throws IOException
+	 */
+	public abstract void seekRound(int round) throws IOException;
+
+	/**
+	 * Close the file
+	 *
+	 * @throws IOException
+	 */
+	public abstract void close() throws IOException;
+
+	/**
+	 * Return the index of the current round
+	 *
+	 * @return the index
+	 */
+	public int getRound() {
+		return round;
+	}
+
+	/**
+	 * Return the id of the player who played the current round
+	 *
+	 * @return the id
+	 */
+	public int getRoundPlayer() {
+		return roundPlayer;
+	}
+
+	/**
+	 * Return the actions of the current round
+	 *
+	 * @return the actions
+	 */
+	public LinkedList<Action> getRoundActions() {
+		return roundActions;
+	}
+
+	/**
+	 * Whether the current round has a checksum of the GameWorld after the round
+	 *
+	 * @return true if it has a checksum
+	 */
+	public boolean hasRoundChecksum() {
+		return roundHasChecksum;
+	}
+
+	/**
+	 * Return the checksum of the GameWorld after the current round
+	 *
+	 * @return the checksum
+	 */
+	public long getRoundChecksum() {
+		return roundChecksum;
+	}
+
+	/**
+	 * Add an action to the current round
+	 *
+	 * @param type        the id of the action type
+	 * @param startX      the start position
+	 * @param startY      the start position
+	 * @param endX        the end position
+	 * @param endY        the end position
+	 * @param produceType the external id of the produced GameObjectType, only used for produce actions
+	 */
+	protected void addAction(int type, int startX, int startY, int endX, int endY, int produceType) {
+		Action action = new Action();
+		action.startX = startX;
+		action.startY = startY;
+		action.endX = endX;
+		action.endY = endY;
+		if (type == MOVE_ID) {
+			action.actionType = Action.ActionType.MOVE;
+		} else if (type == FIGHT_ID) {
+			action.actionType = Action.ActionType.FIGHT;
+		} else if (type == PRODUCE_ID) {
+			action.actionType = Action.ActionType.PRODUCE;
+			action.produceGameObjectType = GameObjectType.getGameObjectTypeByExternalId(produceType);
+		}
+		roundActions.add(action);
+	}
+}
@@ -0,0 +1,86 @@
+package com.smeanox.games.sg002.player;
+
+/**
+ * The resources used by an external program. Values that could not be measured (e.g. because
+ * /proc is not available) are -1.
+ *
+ * @author Benjamin Schmid
+ */
+public class ResourceUsage {
+	private long cpuTime;
+	private long wallTime;
+	private long peakMemory;
+
+	public ResourceUsage(long cpuTime, long wallTime, long peakMemory) {
+		this.cpuTime = cpuTime;
+		this.wallTime = wallTime;
+		this.peakMemory = peakMemory;
+	}
+
+	/**
+	 * The CPU time (user and system) used
+	 *
+	 * @return time in ms
+	 */
+	public long getCpuTime() {
+		return cpuTime;
+	}
+
+	/**
+	 * The time passed
+	 *
+	 * @return time in ms
+	 */
+	public long getWallTime() {
+		return wallTime;
+	}
+
+	/**
+	 * The peak resident memory
+	 *
+	 * @return memory in kB
+	 */
+	public long getPeakMemory() {
+		return peakMemory;
+	}
+
+	/**
+	 * Return the resources used since the given earlier measurement. The peak memory is not
+	 * changed as it can not be split.
+	 *
+	 * @param start the earlier measurement
+	 * @return the difference
+	 */
+	public ResourceUsage since(ResourceUsage start) {
+		return new ResourceUsage(difference(cpuTime, start.cpuTime), difference(wallTime, start.wallTime), peakMemory);
+	}
+
+	/**
+	 * Return the resources used by both measurements together, the peak memory is the maximum of both
+	 *
+	 * @param other the other measurement
+	 * @return the sum
+	 */
+	public ResourceUsage add(ResourceUsage other) {
+		return new ResourceUsage(sum(cpuTime, other.cpuTime), sum(wallTime, other.wallTime),
+				Math.max(peakMemory, other.peakMemory));
+	}
+
+	private static long difference(long a, long b) {
+		return a < 0 || b < 0 ? -1 : a - b;
+	}
+
+	private static long sum(long a, long b) {
+		return a < 0 || b < 0 ? Math.max(a, b) : a + b;
+	}
+
+	@Override
+	public String toString() {
+		return "cpu " + format(cpuTime, "ms") + ", wall " + format(wallTime, "ms")
+				+ ", peak memory " + format(peakMemory < 0 ? -1 : peakMemory / 1024, "MB");
+	}
+
+	private static String format(long value, String unit) {
+		return value < 0 ? "unknown" : value + unit;
+	}
+}
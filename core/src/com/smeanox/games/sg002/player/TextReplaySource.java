@@ -0,0 +1,222 @@
+package com.smeanox.games.sg002.player;
+
+import com.smeanox.games.sg002.data.Point;
+import com.smeanox.games.sg002.util.Consts;
+import com.smeanox.games.sg002.world.Rules;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Read a text game log line by line. The position of every round read so far is remembered, so
+ * {@link #seekRound(int)} can jump back to it. Text game logs do not contain the rules, so
+ * {@link Rules#DEFAULT} is used.
+ *
+ * @author Benjamin Schmid
+ */
+class TextReplaySource extends ReplaySource {
+	private RandomAccessFile file;
+	private byte[] buffer;
+	private int bufferPosition;
+	private int bufferSize;
+	private long bufferOffset;
+	private byte[] lineBuffer;
+
+	private String nextLine;
+	private long nextLineOffset;
+	private long[] roundOffsets;
+	private int knownRounds;
+
+	/**
+	 * Open the given file and read the header
+	 *
+	 * @param replayFile the file
+	 * @throws IOException if the file could not be read or the header is invalid
+	 */
+	TextReplaySource(File replayFile) throws IOException {
+		file = new RandomAccessFile(replayFile, "r");
+		buffer = new byte[8192];
+		lineBuffer = new byte[256];
+		roundOffsets = new long[256];
+		knownRounds = 0;
+		try {
+			String[] configLine = readLine().split(" ");
+			playerNames = readLine().split(" ");
+
+			int playerCount = Integer.parseInt(configLine[0]);
+			int goldCount = Integer.parseInt(configLine[4]);
+			startMoney = Integer.parseInt(configLine[1]);
+			mapSizeX = Integer.parseInt(configLine[2]);
+			mapSizeY = Integer.parseInt(configLine[3]);
+			rules = Rules.DEFAULT;
+
+			goldPos = new Point[goldCount];
+			for (int i = 0; i < goldCount; i++) {
+				goldPos[i] = readPoint();
+			}
+			startPos = new Point[playerCount];
+			for (int i = 0; i < playerCount; i++) {
+				startPos[i] = readPoint();
+			}
+
+			// skip everything before the first round
+			do {
+				readNextLine();
+			} while (nextLine != null && !Consts.NEXT_ROUND_ID.equals(nextLine));
+			addRoundOffset();
+		} catch (RuntimeException e) {
+			file.close();
+			throw new IOException("invalid game log: " + e.getMessage(), e);
+		} catch (IOException e) {
+			file.close();
+			throw e;
+		}
+	}
+
+	@Override
+	protected boolean readRound() throws IOException {
+		// nextLine is the separator of the round or null at the end
+		if (nextLine == null) {
+			return false;
+		}
+		String player = readLine();
+		if (player == null) {
+			nextLine = null;
+			return false;
+		}
+		try {
+			roundPlayer = Integer.parseInt(player);
+			while (readNextLine() != null && !Consts.NEXT_ROUND_ID.equals(nextLine)) {
+				if (nextLine.startsWith(Consts.CHECKSUM_ID + " ")) {
+					roundHasChecksum = true;
+					roundChecksum = new BigInteger(nextLine.substring(Consts.CHECKSUM_ID.length() + 1), 16).longValue();
+					continue;
+				}
+				String[] parts = nextLine.split(" ");
+				addAction(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+						Integer.parseInt(parts[3]), Integer.parseInt(parts[4]),
+						parts.length > 5 ? Integer.parseInt(parts[5]) : -1);
+			}
+		} catch (RuntimeException e) {
+			throw new IOException("invalid game log in round " + (round + 1) + ": " + e.getMessage(), e);
+		}
+		// nextLine is the separator of the round after the one just read
+		if (knownRounds == round + 2) {
+			addRoundOffset();
+		}
+		return true;
+	}
+
+	/**
+	 * Remember the position of the round that starts at {@link #nextLine}
+	 */
+	private void addRoundOffset() {
+		if (nextLine == null) {
+			return;
+		}
+		if (knownRounds == roundOffsets.length) {
+			roundOffsets = Arrays.copyOf(roundOffsets, roundOffsets.length * 2);
+		}
+		roundOffsets[knownRounds++] = nextLineOffset;
+	}
+
+	@Override
+	public void seekRound(int round) throws IOException {
+		if (round == this.round + 1) {
+			return;
+		}
+		if (round < 0 || round >= knownRounds) {
+			throw new IndexOutOfBoundsException("the position of round " + round + " is not known yet");
+		}
+		seek(roundOffsets[round]);
+		readNextLine();
+		this.round = round - 1;
+	}
+
+	@Override
+	public void close() throws IOException {
+		file.close();
+	}
+
+	/**
+	 * Read the next line into {@link #nextLine} and remember its position
+	 *
+	 * @return the line or null at the end of the file
+	 * @throws IOException
+	 */
+	private String readNextLine() throws IOException {
+		do {
+			nextLineOffset = bufferOffset + bufferPosition;
+			nextLine = readRawLine();
+		} while (nextLine != null && (nextLine.trim().isEmpty() || nextLine.trim().startsWith("#")));
+		return nextLine;
+	}
+
+	/**
+	 * Read the next line that is not empty and not a comment
+	 *
+	 * @return the line or null at the end of the file
+	 * @throws IOException
+	 */
+	private String readLine() throws IOException {
+		String line;
+		do {
+			line = readRawLine();
+		} while (line != null && (line.trim().isEmpty() || line.trim().startsWith("#")));
+		return line;
+	}
+
+	private Point readPoint() throws IOException {
+		String[] parts = readLine().split(" ");
+		return new Point(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+	}
+
+	/**
+	 * Read the next line, the line separator is not included
+	 *
+	 * @return the line or null at the end of the file
+	 * @throws IOException
+	 */
+	private String readRawLine() throws IOException {
+		int length = 0;
+		while (true) {
+			if (bufferPosition == bufferSize) {
+				bufferOffset += bufferSize;
+				bufferPosition = 0;
+				bufferSize = Math.max(file.read(buffer), 0);
+				if (bufferSize == 0) {
+					return length == 0 ? null : decode(length);
+				}
+			}
+			byte b = buffer[bufferPosition++];
+			if (b == '\n') {
+				return decode(length);
+			}
+			if (length == lineBuffer.length) {
+				lineBuffer = Arrays.copyOf(lineBuffer, lineBuffer.length * 2);
+			}
+			lineBuffer[length++] = b;
+		}
+	}
+
+	private String decode(int length) throws IOException {
+		if (length > 0 && lineBuffer[length - 1] == '\r') {
+			length--;
+		}
+		return new String(lineBuffer, 0, length, "UTF-8");
+	}
+
+	private void seek(long position) throws IOException {
+		if (position >= bufferOffset && position <= bufferOffset + bufferSize) {
+			bufferPosition = (int) (position - bufferOffset);
+			return;
+		}
+		file.seek(position);
+		bufferOffset = position;
+		bufferPosition = 0;
+		bufferSize = 0;
+	}
+}
@@ -6,5 +6,6 @@
  * @see com.smeanox.games.sg002.player.AIPlayer
  * @see com.smeanox.games.sg002.player.AIPlayer_BenNo1
  * @see com.smeanox.games.sg002.player.ExternalAIPlayer
+ * @see com.smeanox.games.sg002.player.ExternalProcessPool
  */
 package com.smeanox.games.sg002.player;
\ No newline at end of file
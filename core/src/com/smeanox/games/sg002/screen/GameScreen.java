@@ -32,6 +32,7 @@ import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Vector3;
 import com.smeanox.games.sg002.debug.FPSTracker;
 import com.smeanox.games.sg002.player.Player;
+import com.smeanox.games.sg002.player.Replay;
 import com.smeanox.games.sg002.screen.gui.Button;
 import com.smeanox.games.sg002.screen.gui.ClickHandler;
 import com.smeanox.games.sg002.util.Assets;
@@ -59,6 +60,9 @@ import java.util.LinkedList;
 public class GameScreen extends AbstractScreen {
 	private GameView gameView;
 	private GameController gameController;
+	private Replay replay;
+	private boolean replayPaused;
+	private int shownRound;
 	private Action aAction;
 
 	private boolean wasTouchDown;
@@ -74,6 +78,7 @@ public class GameScreen extends AbstractScreen {
 	private Button nextPlayerButton;
 	private Button moneyLabel;
 	private Button nameLabel;
+	private Button roundLabel;
 	private LinkedList<Button> produceButtons;
 	private HashMap<GameObjectType, Button> gameObjectTypeToProduceButton;
 
@@ -83,8 +88,30 @@ public class GameScreen extends AbstractScreen {
 	 * @param gameController the GameController that handles the game
 	 */
 	public GameScreen(GameController gameController) {
+		this(gameController, null);
+	}
+
+	/**
+	 * Create a new instance showing a replay, with controls to jump to other rounds
+	 *
+	 * @param replay the replay to show
+	 */
+	public GameScreen(Replay replay) {
+		this(replay.getGameController(), replay);
+	}
+
+	/**
+	 * Create a new instance
+	 *
+	 * @param gameController the GameController that handles the game
+	 * @param replay         the replay that is played by the GameController or null
+	 */
+	private GameScreen(GameController gameController, Replay replay) {
 		super();
 		this.gameController = gameController;
+		this.replay = replay;
+		replayPaused = false;
+		shownRound = -1;
 		gameView = new GameView(gameController.getGameWorld());
 		aAction = new Action();
 		aAction.actionType = Action.ActionType.NONE;
@@ -273,6 +300,86 @@ public class GameScreen extends AbstractScreen {
 		}
 
 		layout(produceButtons, cols, rows, 0, 0, 0, 0, 250, 40, 5, 5);
+
+		if (replay != null) {
+			createReplayUI();
+		}
+	}
+
+	/**
+	 * Create the GUI elements to control a replay
+	 */
+	private void createReplayUI() {
+		LinkedList<Button> toLayout = new LinkedList<Button>();
+
+		Button b;
+		// round label
+		b = new Button(null, Assets.liberationMedium, Language.getStrings().format("gameScreen.round", 0),
+				Color.BLACK, Color.WHITE, Color.LIGHT_GRAY, Color.DARK_GRAY);
+		addGUIElement(b);
+		toLayout.add(b);
+		roundLabel = b;
+
+		layout(toLayout, 1, 1, 0, -1, 0, -0.40f, 200, 40, 0, 0);
+
+		toLayout.clear();
+		// seek back
+		b = new Button(new Sprite(Assets.button), Assets.liberationMedium, "<<", Color.BLACK,
+				Color.WHITE, Color.LIGHT_GRAY, Color.DARK_GRAY);
+		b.addClickHandler(new ClickHandler() {
+			@Override
+			public void onClick() {
+				replay.seekRound(replay.getRound() - Consts.REPLAY_KEYFRAME_INTERVAL);
+			}
+		});
+		addGUIElement(b);
+		toLayout.add(b);
+		// step back
+		b = new Button(new Sprite(Assets.button), Assets.liberationMedium, "<", Color.BLACK,
+				Color.WHITE, Color.LIGHT_GRAY, Color.DARK_GRAY);
+		b.addClickHandler(new ClickHandler() {
+			@Override
+			public void onClick() {
+				replay.stepBack();
+			}
+		});
+		addGUIElement(b);
+		toLayout.add(b);
+		// pause
+		b = new Button(new Sprite(Assets.button), Assets.liberationMedium, "||", Color.BLACK,
+				Color.WHITE, Color.LIGHT_GRAY, Color.DARK_GRAY);
+		b.addClickHandler(new ClickHandler() {
+			@Override
+			public void onClick() {
+				replayPaused = !replayPaused;
+			}
+		});
+		addGUIElement(b);
+		toLayout.add(b);
+		// step forward
+		b = new Button(new Sprite(Assets.button), Assets.liberationMedium, ">", Color.BLACK,
+				Color.WHITE, Color.LIGHT_GRAY, Color.DARK_GRAY);
+		b.addClickHandler(new ClickHandler() {
+			@Override
+			public void onClick() {
+				replay.stepForward();
+			}
+		});
+		addGUIElement(b);
+		toLayout.add(b);
+		// seek forward
+		b = new Button(new Sprite(Assets.button), Assets.liberationMedium, ">>", Color.BLACK,
+				Color.WHITE, Color.LIGHT_GRAY, Color.DARK_GRAY);
+		b.addClickHandler(new ClickHandler() {
+			@Override
+			public void onClick() {
+				replay.seekRound(replay.getRound() + Consts.REPLAY_KEYFRAME_INTERVAL);
+			}
+		});
+		addGUIElement(b);
+		toLayout.add(b);
+
+		layout(toLayout, 5, 1, 0, -1, 0, -0.48f, 60, 40, 10, 0);
 	}
 
 	/**
@@ -294,7 +401,13 @@ public class GameScreen extends AbstractScreen {
 
 		boolean wasClick = updateGUI(delta, wasDrag);
 		updateInput(delta, wasClick);
-		gameController.update(delta);
+		if (!replayPaused) {
+			gameController.update(delta);
+		}
+		if (replay != null && replay.getRound() != shownRound) {
+			shownRound = replay.getRound();
+			roundLabel.setText(Language.getStrings().format("gameScreen.round", shownRound));
+		}
 
 		clearScreen();
 		spriteBatch.begin();
@@ -416,6 +529,10 @@ public class GameScreen extends AbstractScreen {
 			cancelAction();
 		}
 
+		if (replay != null) {
+			updateReplayShortcuts();
+		}
+
 		if (wasKeyDown.get(Consts.KeyboardShortcuts.backKey)
 				&& !(Gdx.input.isKeyPressed(Input.Keys.BACK)
 				|| Gdx.input.isKeyPressed(Consts.KeyboardShortcuts.backKey))) {
@@ -423,9 +540,38 @@ public class GameScreen extends AbstractScreen {
 		}
 	}
 
+	/**
+	 * Check whether a keyboard shortcut to control the replay was pressed
+	 */
+	private void updateReplayShortcuts() {
+		if (wasKeyDown.get(Consts.KeyboardShortcuts.replayPause)
+				&& !Gdx.input.isKeyPressed(Consts.KeyboardShortcuts.replayPause)) {
+			replayPaused = !replayPaused;
+		}
+		if (wasKeyDown.get(Consts.KeyboardShortcuts.replayStepBack)
+				&& !Gdx.input.isKeyPressed(Consts.KeyboardShortcuts.replayStepBack)) {
+			replay.stepBack();
+		}
+		if (wasKeyDown.get(Consts.KeyboardShortcuts.replayStepForward)
+				&& !Gdx.input.isKeyPressed(Consts.KeyboardShortcuts.replayStepForward)) {
+			replay.stepForward();
+		}
+		if (wasKeyDown.get(Consts.KeyboardShortcuts.replaySeekBack)
+				&& !Gdx.input.isKeyPressed(Consts.KeyboardShortcuts.replaySeekBack)) {
+			replay.seekRound(replay.getRound() - Consts.REPLAY_KEYFRAME_INTERVAL);
+		}
+		if (wasKeyDown.get(Consts.KeyboardShortcuts.replaySeekForward)
+				&& !Gdx.input.isKeyPressed(Consts.KeyboardShortcuts.replaySeekForward)) {
+			replay.seekRound(replay.getRound() + Consts.REPLAY_KEYFRAME_INTERVAL);
+		}
+	}
+
 	@Override
 	public void dispose() {
 		gameController.endGame();
+		if (replay != null) {
+			replay.close();
+		}
 	}
 
 	/**
@@ -613,7 +759,7 @@ public class GameScreen extends AbstractScreen {
 	 */
 	private void selectProduceGameObjectType(GameObjectType gameObjectType) {
 		if (gameView.getActiveGameObject() == null
-				|| !gameView.getActiveGameObject().getGameObjectType().getCanProduceList().contains(gameObjectType)) {
+				|| !gameView.getActiveGameObject().getGameObjectType().canProduce(gameObjectType)) {
 			return;
 		}
 		aAction.actionType = Action.ActionType.PRODUCE;
@@ -33,6 +33,7 @@ import com.smeanox.games.sg002.player.AIPlayer_BenNo1;
 import com.smeanox.games.sg002.player.ExternalAIPlayer;
 import com.smeanox.games.sg002.player.LocalPlayer;
 import com.smeanox.games.sg002.player.Player;
+import com.smeanox.games.sg002.player.Replay;
 import com.smeanox.games.sg002.player.ReplayLoader;
 import com.smeanox.games.sg002.screen.gui.Button;
 import com.smeanox.games.sg002.screen.gui.ClickHandler;
@@ -384,6 +385,7 @@ public class MenuScreen extends AbstractScreen {
 		GameLogger logger = new GameLogger();
 		logger.setLogFolder(ProgramArguments.logFolder);
 		logger.setGameLogPath(ProgramArguments.gameLog);
+		logger.setBinaryGameLogPath(ProgramArguments.binaryGameLog);
 		logger.setBehaviourLogPath(ProgramArguments.behaviourLog);
 		logger.setPrintStdOut(ProgramArguments.printStdOut);
 		logger.setPrintStdErr(ProgramArguments.printStdErr);
@@ -410,12 +412,15 @@ public class MenuScreen extends AbstractScreen {
 	private void startReplay() {
 		if (replayLoaderStarted) {
 			if (!replayLoader.isAlive()) {
-				GameController gameController = replayLoader.getResult();
-				if (gameController == null) {
+				Replay replay = replayLoader.getReplay();
+				if (replay == null) {
 					System.out.println("Loading of replay failed");
 					ScreenManager.exit();
 				} else {
-					ScreenManager.showGame(gameController);
+					ScreenManager.showReplay(replay);
+					if (ProgramArguments.replayRound > 0) {
+						replay.seekRound(ProgramArguments.replayRound);
+					}
 				}
 				replayLoaderStarted = false;
 			}
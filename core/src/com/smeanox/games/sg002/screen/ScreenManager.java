@@ -2,6 +2,7 @@ package com.smeanox.games.sg002.screen;
 
 import com.badlogic.gdx.Game;
 import com.badlogic.gdx.Gdx;
+import com.smeanox.games.sg002.player.Replay;
 import com.smeanox.games.sg002.util.Assets;
 import com.smeanox.games.sg002.world.GameController;
 
@@ -84,6 +85,20 @@ public class ScreenManager {
 		game.setScreen(gameScreen);
 	}
 
+	/**
+	 * Set the game screen as active screen with the controls to jump around in the given replay
+	 *
+	 * @param replay the replay to show
+	 */
+	public static void showReplay(Replay replay) {
+		if(gameScreen != null){
+			gameScreen.dispose();
+		}
+		gameScreen = null;
+		gameScreen = new GameScreen(replay);
+		game.setScreen(gameScreen);
+	}
+
 	/**
 	 * Exit the game
 	 */
@@ -126,24 +126,26 @@ public class Consts {
 	public static float aiSleep = 0.5f;
 
 	/**
-	 * The delta used for update in noGUI mode
+	 * The name of the file used for QuickSaving
 	 */
-	public static float headlessFrameDuration = 0.1f;
+	public static final String quickSaveFileName = "quicksave.xml";
 
 	/**
-	 * The name of the file used for QuickSaving
+	 * Time in ms an external program has in total to output its moves in a game, if the scenario
+	 * does not set one
 	 */
-	public static final String quickSaveFileName = "quicksave.xml";
+	public static final int EXTERNAL_TIME_BUDGET = 20000;
 
 	/**
-	 * Time in ms an external program has time to output a move, afterwards it will be terminated
+	 * Time in ms an external program gets added to its remaining time after each move, if the scenario
+	 * does not set one
 	 */
-	public static final int EXTERNAL_LONG_TIMEOUT = 1750;
+	public static final int EXTERNAL_TIME_INCREMENT = 1000;
 
 	/**
-	 * Time in ms an external program has time to output a move, afterwards a warning will be logged
+	 * Time in ms a pooled external program has to answer to a new game
 	 */
-	public static final int EXTERNAL_SHORT_TIMEOUT = 750;
+	public static final int EXTERNAL_NEW_GAME_TIMEOUT = 2500;
 
 	/**
 	 * The maximal number of lines an external program may output to stderr. If more are printed
@@ -152,11 +154,61 @@ public class Consts {
 	public static final int EXTERNAL_MAX_STDERR_LINES = 1000;
 
 	/**
-	 * The maximal number of times an external program may output a move after the short
-	 * timeout but before the long timeout. If a program uses more than the allowed number
-	 * it will be terminated
+	 * Number of bytes of the output of an external program that are buffered before it has to wait.
+	 * This is also the maximal length of a line and has to be a power of two.
+	 */
+	public static final int EXTERNAL_OUTPUT_BUFFER_SIZE = 65536;
+
+	/**
+	 * The maximal number of games a pooled external program plays before it is restarted
 	 */
-	public static final int EXTERNAL_MAX_TIMEOUT_COUNT = 100;
+	public static final int EXTERNAL_POOL_MAX_GAMES = 50;
+
+	/**
+	 * Number of lines an asynchronous GameLogger buffers, has to be a power of two
+	 */
+	public static final int LOG_BUFFER_SIZE = 8192;
+
+	/**
+	 * Time in ms the background thread of an asynchronous GameLogger waits for new lines
+	 */
+	public static final int LOG_WRITER_IDLE_WAIT = 10;
+
+	/**
+	 * The rating every player starts with in an adaptive evaluation
+	 */
+	public static final double RATING_INITIAL = 1500;
+
+	/**
+	 * The deviation of the rating every player starts with in an adaptive evaluation
+	 */
+	public static final double RATING_INITIAL_DEVIATION = 350;
+
+	/**
+	 * The deviation of a rating never gets smaller than this, so ratings can still change
+	 */
+	public static final double RATING_MIN_DEVIATION = 30;
+
+	/**
+	 * The deviation of every rating grows by this (in quadrature) before each round of an adaptive
+	 * evaluation, because the true strength of a player may have changed (the c of Glicko)
+	 */
+	public static final double RATING_DEVIATION_INCREASE = 10;
+
+	/**
+	 * An adaptive evaluation ends once the deviation of all ratings is smaller than this
+	 */
+	public static final double RATING_CONVERGED_DEVIATION = 75;
+
+	/**
+	 * The maximal number of rounds in an adaptive evaluation, even if the ratings did not converge
+	 */
+	public static final int RATING_MAX_ROUNDS = 50;
+
+	/**
+	 * Number of rounds between two keyframes of a replay, jumping to a round replays at most this many rounds
+	 */
+	public static final int REPLAY_KEYFRAME_INTERVAL = 50;
 
 	/**
 	 * ID of mapObjectType for gold
@@ -184,36 +236,54 @@ public class Consts {
 	public static final String NEXT_ROUND_ID = "---";
 
 	/**
-	 * Command used to start a local player
+	 * ID used for logging, starts the line with the checksum of the world after a round
 	 */
-	public static final String COMMAND_LOCAL = ":local";
+	public static final String CHECKSUM_ID = "=";
 
 	/**
-	 * Command used to start the AI 'BenNo1'
+	 * Start of the line an external AI uses to choose the version of the protocol
 	 */
-	public static final String COMMAND_BENNO1 = ":BenNo1";
+	public static final String PROTOCOL_ID = "protocol";
+
+	/**
+	 * Version of the protocol in which the game state is sent as differences to the last round
+	 */
+	public static final int PROTOCOL_VERSION_DELTA = 2;
 
-	// Game Settings, read from scenario
+	/**
+	 * ID used for external AI in the delta protocol
+	 */
+	public static final String CREATED_ID = "0";
 
 	/**
-	 * The seed used for randomness
+	 * ID used for external AI in the delta protocol
 	 */
-	public static long seed = 314159265358979L;
+	public static final String CHANGED_ID = "1";
 
 	/**
-	 * Whether the GameObjects can move diagonal (different radius form). The distance is diffX + diffY (false) or max(diffX, diffY) (true)
+	 * ID used for external AI in the delta protocol
 	 */
-	public static boolean walkDiagonal = true;
+	public static final String REMOVED_ID = "2";
 
 	/**
-	 * Whether an object can perform multiple actions per round (one of each type) or only one per round
+	 * Line sent to a pooled external AI before a new game starts, the AI has to answer with the same line
+	 */
+	public static final String NEW_GAME_ID = "+++";
+
+	/**
+	 * Command used to start a local player
 	 */
-	public static boolean multipleActionsPerObject = true;
+	public static final String COMMAND_LOCAL = ":local";
+
+	/**
+	 * Command used to start the AI 'BenNo1'
+	 */
+	public static final String COMMAND_BENNO1 = ":BenNo1";
 
 	/**
-	 * The minimal distance between two start GameObjects
+	 * Prefix of the command of an external AI that supports playing multiple games with one process
 	 */
-	public static int startGameObjectMinDistance = 2;
+	public static final String COMMAND_POOLED_PREFIX = ":pooled ";
 
 	/**
 	 * Keyboard Shortcuts
@@ -233,6 +303,11 @@ public class Consts {
 		public static final int move = Input.Keys.M;
 		public static final int fight = Input.Keys.F;
 		public static final int cancel = Input.Keys.BACKSPACE;
+		public static final int replayPause = Input.Keys.SPACE;
+		public static final int replayStepBack = Input.Keys.LEFT;
+		public static final int replayStepForward = Input.Keys.RIGHT;
+		public static final int replaySeekBack = Input.Keys.PAGE_UP;
+		public static final int replaySeekForward = Input.Keys.PAGE_DOWN;
 
 		private static LinkedList<Integer> allShortcuts;
 
@@ -258,6 +333,11 @@ public class Consts {
 				allShortcuts.add(move);
 				allShortcuts.add(fight);
 				allShortcuts.add(cancel);
+				allShortcuts.add(replayPause);
+				allShortcuts.add(replayStepBack);
+				allShortcuts.add(replayStepForward);
+				allShortcuts.add(replaySeekBack);
+				allShortcuts.add(replaySeekForward);
 			}
 			return allShortcuts;
 		}
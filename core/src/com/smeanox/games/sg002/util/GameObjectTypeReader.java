@@ -71,6 +71,8 @@ public class GameObjectTypeReader {
 					}
 				}
 			}
+
+			GameObjectType.freezeRegistry();
 		} catch (IOException e) {
 			System.out.println("Config file (GameObjectTypes) not found: " + file.name());
 			e.printStackTrace();
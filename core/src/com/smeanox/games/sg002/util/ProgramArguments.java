@@ -19,12 +19,16 @@ public class ProgramArguments {
 
 	public static String gameLog = null;
 
+	public static String binaryGameLog = null;
+
 	public static String behaviourLog = null;
 
 	public static boolean printStdOut = false;
 
 	public static boolean printStdErr = false;
 
+	public static boolean asyncLog = false;
+
 	public static String tournamentLog = null;
 
 	public static String evaluationLog = null;
@@ -51,14 +55,28 @@ public class ProgramArguments {
 
 	public static boolean evaluation = true;
 
+	public static boolean adaptive = false;
+
 	public static String tournamentFile = null;
 
 	public static boolean autoStart = false;
 
 	public static String replay = null;
 
+	public static int replayRound = 0;
+
+	public static String convertReplay = null;
+
+	public static String convertReplayOut = null;
+
 	public static boolean printFPS = false;
 
+	public static int threads = 1;
+
+	public static long cpuLimit = 0;
+
+	public static long memoryLimit = 0;
+
 	/**
 	 * Read program arguments
 	 *
@@ -81,6 +99,9 @@ public class ProgramArguments {
 				} else if ("-gamelog".equals(args[i])) {
 					gameLog = args[i + 1];
 					i += 1;
+				} else if ("-binarygamelog".equals(args[i])) {
+					binaryGameLog = args[i + 1];
+					i += 1;
 				} else if ("-behaviourlog".equals(args[i])) {
 					behaviourLog = args[i + 1];
 					i += 1;
@@ -90,6 +111,9 @@ public class ProgramArguments {
 				} else if ("-stderr".equals(args[i])) {
 					printStdErr = "1".equals(args[i+1]);
 					i += 1;
+				} else if ("-asynclog".equals(args[i])) {
+					asyncLog = "1".equals(args[i+1]);
+					i += 1;
 				} else if ("-tournamentlog".equals(args[i])) {
 					tournamentLog = args[i + 1];
 					i += 1;
@@ -132,15 +156,34 @@ public class ProgramArguments {
 				} else if ("-replay".equals(args[i])) {
 					replay = args[i + 1];
 					i += 1;
+				} else if ("-replayround".equals(args[i])) {
+					replayRound = Integer.parseInt(args[i + 1]);
+					i += 1;
+				} else if ("-convertreplay".equals(args[i])) {
+					convertReplayOut = args[i + 2];
+					convertReplay = args[i + 1];
+					i += 2;
 				} else if ("-evaluation".equals(args[i])) {
 					evaluation = "1".equals(args[i+1]);
 					i += 1;
+				} else if ("-adaptive".equals(args[i])) {
+					adaptive = "1".equals(args[i+1]);
+					i += 1;
 				} else if ("-tournament".equals(args[i])) {
 					tournamentFile = args[i + 1];
 					i += 1;
 				} else if ("-printfps".equals(args[i])) {
 					printFPS = "1".equals(args[i+1]);
 					i += 1;
+				} else if ("-threads".equals(args[i])) {
+					threads = Integer.parseInt(args[i + 1]);
+					i += 1;
+				} else if ("-cpulimit".equals(args[i])) {
+					cpuLimit = Long.parseLong(args[i + 1]);
+					i += 1;
+				} else if ("-memorylimit".equals(args[i])) {
+					memoryLimit = Long.parseLong(args[i + 1]);
+					i += 1;
 				} else {
 					System.out.println("Unknown argument: " + args[i]);
 					printHelp();
@@ -168,9 +211,11 @@ public class ProgramArguments {
 				"[-fullscreen 0/1] " +
 				"[-logfolder folder] " +
 				"[-gamelog file] " +
+				"[-binarygamelog file] " +
 				"[-behaviourlog file] " +
 				"[-stdout 0/1] " +
 				"[-stderr 0/1] " +
+				"[-asynclog 0/1] " +
 				"[-tournamentlog file] " +
 				"[-evaluationlog file] " +
 				"[-tournamentstdout 0/1] " +
@@ -185,9 +230,15 @@ public class ProgramArguments {
 				"[-playercount count] " +
 				"[-autostart 0/1] " +
 				"[-replay file] " +
+				"[-replayround round] " +
+				"[-convertreplay file file] " +
 				"[-evaluation 0/1] " +
+				"[-adaptive 0/1] " +
 				"[-tournament file] " +
-				"[-printfps 0/1");
+				"[-printfps 0/1] " +
+				"[-threads count] " +
+				"[-cpulimit ms] " +
+				"[-memorylimit MB]");
 	}
 
 	/**
@@ -211,6 +262,19 @@ public class ProgramArguments {
 				return false;
 			}
 		}
+		if(convertReplay != null){
+			if(!checkFile("replay", convertReplay)){
+				return false;
+			}
+		}
+		if(cpuLimit < 0 || memoryLimit < 0){
+			System.out.println("limits can not be negative");
+			return false;
+		}
+		if(threads < 1){
+			System.out.println("threads has to be at least 1");
+			return false;
+		}
 		if(autoStart){
 			if(playerCount < 2 || scenario == null || playersFile == null || namesFile == null) {
 				System.out.println("not enough info for autostart");
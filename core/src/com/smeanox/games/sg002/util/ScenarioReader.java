@@ -33,6 +33,7 @@ public class ScenarioReader {
 		try {
 			XmlReader.Element root = reader.parse(file);
 			for(XmlReader.Element scenario : root.getChildByName("Scenarios").getChildrenByName("Scenario")){
+				Scenario newScenario;
 
 				if (scenario.getChildByName("GoldPos") != null && scenario.getChildByName("StartPos") != null){
 
@@ -45,7 +46,7 @@ public class ScenarioReader {
 						startPos.add(new Point(pos.getIntAttribute("x"),pos.getIntAttribute("y")));
 					}
 
-					new Scenario(
+					newScenario = new Scenario(
 							scenario.getAttribute("id"),
 							Language.getStrings().get(scenario.getAttribute("name")),
 							scenario.getIntAttribute("startMoney"),
@@ -60,7 +61,7 @@ public class ScenarioReader {
 							goldPos.toArray(new Point[goldPos.size()]),
 							startPos.toArray(new Point[startPos.size()]));
 				}else {
-					new Scenario(
+					newScenario = new Scenario(
 							scenario.getAttribute("id"),
 							Language.getStrings().get(scenario.getAttribute("name")),
 							scenario.getIntAttribute("startMoney"),
@@ -73,6 +74,8 @@ public class ScenarioReader {
 							scenario.getIntAttribute("maxGold"),
 							scenario.getBooleanAttribute("multipleActionsPerObject"));
 				}
+				newScenario.setTimeControl(scenario.getIntAttribute("timeBudget", Consts.EXTERNAL_TIME_BUDGET),
+						scenario.getIntAttribute("timeIncrement", Consts.EXTERNAL_TIME_INCREMENT));
 				ids.add(scenario.getAttribute("id"));
 			}
 		} catch (IOException e) {
@@ -352,16 +352,16 @@ public class GameView {
 		if(activeGameObject == null) {
 			return;
 		}
-		for(int y = 0; y < gameWorld.getMapSizeY(); y++) {
-			for (int x = 0; x < gameWorld.getMapSizeX(); x++) {
-				if (activeGameObject.canMoveTo(x, y)) {
-					canActionToCache.get(Action.ActionType.MOVE).add(new Point(x, y));
-				}
-				if (activeGameObject.canFightTo(x, y)) {
-					canActionToCache.get(Action.ActionType.FIGHT).add(new Point(x, y));
-				}
-				if (activeGameObject.canProduceTo(x, y)) {
-					canActionToCache.get(Action.ActionType.PRODUCE).add(new Point(x, y));
+		for(Action.ActionType actionType : Action.ActionType.values()){
+			if (actionType == Action.ActionType.NONE) {
+				continue;
+			}
+			int[] offsets = activeGameObject.getOffsets(actionType);
+			for (int i = 0; i < offsets.length; i += 2) {
+				int x = activeX + offsets[i];
+				int y = activeY + offsets[i + 1];
+				if (x >= 0 && y >= 0 && x < gameWorld.getMapSizeX() && y < gameWorld.getMapSizeY()) {
+					canActionToCache.get(actionType).add(new Point(x, y));
 				}
 			}
 		}
@@ -0,0 +1,94 @@
+package com.smeanox.games.sg002.world;
+
+/**
+ * Reusable ActionSink that stores the actions in a primitive array, so no objects are allocated once
+ * the buffer is large enough
+ *
+ * @author Benjamin Schmid
+ */
+public class ActionBuffer implements ActionSink {
+	private static final int FIELDS = 6;
+	private static final Action.ActionType[] ACTION_TYPES = Action.ActionType.values();
+
+	private int[] actions;
+	private int size;
+
+	/**
+	 * Create a new, empty instance
+	 */
+	public ActionBuffer() {
+		actions = new int[64 * FIELDS];
+		size = 0;
+	}
+
+	@Override
+	public void addAction(Action.ActionType actionType, int startX, int startY, int endX, int endY,
+						  GameObjectType produceGameObjectType) {
+		if ((size + 1) * FIELDS > actions.length) {
+			int[] newActions = new int[actions.length * 2];
+			System.arraycopy(actions, 0, newActions, 0, size * FIELDS);
+			actions = newActions;
+		}
+		int i = size * FIELDS;
+		actions[i] = actionType.ordinal();
+		actions[i + 1] = startX;
+		actions[i + 2] = startY;
+		actions[i + 3] = endX;
+		actions[i + 4] = endY;
+		actions[i + 5] = produceGameObjectType == null ? -1 : produceGameObjectType.getOrdinal();
+		size++;
+	}
+
+	/**
+	 * Remove all actions, the allocated memory is kept
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public Action.ActionType getActionType(int i) {
+		return ACTION_TYPES[actions[i * FIELDS]];
+	}
+
+	public int getStartX(int i) {
+		return actions[i * FIELDS + 1];
+	}
+
+	public int getStartY(int i) {
+		return actions[i * FIELDS + 2];
+	}
+
+	public int getEndX(int i) {
+		return actions[i * FIELDS + 3];
+	}
+
+	public int getEndY(int i) {
+		return actions[i * FIELDS + 4];
+	}
+
+	/**
+	 * Return the type to produce of the i-th action
+	 *
+	 * @param i the index
+	 * @return the type or null if the action is not PRODUCE
+	 */
+	public GameObjectType getProduceGameObjectType(int i) {
+		int ordinal = actions[i * FIELDS + 5];
+		return ordinal < 0 ? null : GameObjectType.getGameObjectTypeByOrdinal(ordinal);
+	}
+
+	/**
+	 * Create an Action object of the i-th action
+	 *
+	 * @param i the index
+	 * @return the action
+	 */
+	public Action getAction(int i) {
+		return new Action(getActionType(i), getStartX(i), getStartY(i), getEndX(i), getEndY(i),
+				getProduceGameObjectType(i));
+	}
+}
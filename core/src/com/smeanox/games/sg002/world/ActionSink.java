@@ -0,0 +1,21 @@
+package com.smeanox.games.sg002.world;
+
+/**
+ * Receives the actions enumerated by {@link GameWorld#generateLegalActions(com.smeanox.games.sg002.player.Player, ActionSink)}
+ *
+ * @author Benjamin Schmid
+ */
+public interface ActionSink {
+	/**
+	 * Called for every legal action
+	 *
+	 * @param actionType            the type of the action (MOVE, FIGHT or PRODUCE)
+	 * @param startX                start coordinates
+	 * @param startY                start coordinates
+	 * @param endX                  end coordinates
+	 * @param endY                  end coordinates
+	 * @param produceGameObjectType the type to produce or null if the action is not PRODUCE
+	 */
+	void addAction(Action.ActionType actionType, int startX, int startY, int endX, int endY,
+				   GameObjectType produceGameObjectType);
+}
@@ -5,6 +5,7 @@ import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.utils.XmlReader;
 import com.badlogic.gdx.utils.XmlWriter;
 import com.smeanox.games.sg002.data.Point;
+import com.smeanox.games.sg002.log.BinaryReplayWriter;
 import com.smeanox.games.sg002.log.GameLogger;
 import com.smeanox.games.sg002.player.ExternalAIPlayer;
 import com.smeanox.games.sg002.player.Player;
@@ -26,8 +27,13 @@ import java.util.LinkedList;
  * @author Benjamin Schmid
  */
 public class GameController {
+	private static final int MOVE_ID = Integer.parseInt(Consts.MOVE_ID);
+	private static final int FIGHT_ID = Integer.parseInt(Consts.FIGHT_ID);
+	private static final int PRODUCE_ID = Integer.parseInt(Consts.PRODUCE_ID);
+
 	private GameLogger logger;
 	private Scenario scenario;
+	private Rules rules;
 	private GameWorld gameWorld;
 	private LinkedList<Player> players;
 	private Iterator<Player> playerIterator;
@@ -73,7 +79,7 @@ public class GameController {
 
 		initScenario(scenario);
 
-		gameWorld = new GameWorld(scenario);
+		gameWorld = new GameWorld(scenario, rules);
 
 		gameEnded = false;
 	}
@@ -84,10 +90,7 @@ public class GameController {
 	 * @param scenario the scenario
 	 */
 	private void initScenario(Scenario scenario) {
-		Consts.seed = scenario.getSeed();
-		Consts.walkDiagonal = scenario.isWalkDiagonal();
-		Consts.multipleActionsPerObject = scenario.isMultipleActionsPerObject();
-		Consts.startGameObjectMinDistance = scenario.getStartGameObjectMinDistance();
+		rules = new Rules(scenario);
 	}
 
 	/**
@@ -145,6 +148,7 @@ public class GameController {
 		for (int i = 0; i < players.size(); i++) {
 			logger.game(scenario.getStartPos(i).x + " " + scenario.getStartPos(i).y);
 		}
+		writeBinaryHeader();
 
 		playerIterator = players.iterator();
 		finishedRound();
@@ -159,6 +163,7 @@ public class GameController {
 		}
 
 		writeActionsLog();
+		writeChecksumLog();
 
 		if (countLivingPlayers() < 2) {
 			endGame();
@@ -171,25 +176,79 @@ public class GameController {
 			throw new IllegalStateException("Something's broken");
 		}
 		logger.game("" + activePlayer.getId());
+		if (logger.getBinaryGameLog() != null) {
+			try {
+				logger.getBinaryGameLog().startRound(activePlayer.getId());
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
 		startRound(activePlayer);
 	}
 
+	/**
+	 * write the header of the binary game log
+	 */
+	private void writeBinaryHeader() {
+		BinaryReplayWriter binaryLog = logger.getBinaryGameLog();
+		if (binaryLog == null) {
+			return;
+		}
+		String[] playerNames = new String[players.size()];
+		Point[] startPos = new Point[players.size()];
+		for (int i = 0; i < players.size(); i++) {
+			playerNames[i] = players.get(i).getName();
+			startPos[i] = scenario.getStartPos(i);
+		}
+		try {
+			binaryLog.writeHeader(rules, scenario.getStartMoney(), scenario.getMapSizeX(), scenario.getMapSizeY(),
+					playerNames, scenario.getGoldPos(), startPos);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * write the checksum of the GameWorld after the round of the active player to the log file
+	 */
+	private void writeChecksumLog() {
+		if (activePlayer == null) {
+			return;
+		}
+		long checksum = gameWorld.getChecksum();
+		logger.game(Consts.CHECKSUM_ID + " " + Long.toHexString(checksum));
+		if (logger.getBinaryGameLog() != null) {
+			logger.getBinaryGameLog().writeChecksum(checksum);
+		}
+	}
+
 	/**
 	 * write the performed actions to the log file
 	 */
 	private void writeActionsLog() {
+		BinaryReplayWriter binaryLog = logger.getBinaryGameLog();
 		if(gameWorld.getPlayerActions().get(activePlayer) != null) {
 			for (Action action : gameWorld.getPlayerActions().get(activePlayer)) {
 				String startEnd = action.startX + " " + action.startY + " " + action.endX + " " + action.endY;
 				switch (action.actionType) {
 					case MOVE:
 						logger.game(Consts.MOVE_ID + " " + startEnd);
+						if (binaryLog != null) {
+							binaryLog.writeAction(MOVE_ID, action.startX, action.startY, action.endX, action.endY, -1);
+						}
 						break;
 					case FIGHT:
 						logger.game(Consts.FIGHT_ID + " " + startEnd);
+						if (binaryLog != null) {
+							binaryLog.writeAction(FIGHT_ID, action.startX, action.startY, action.endX, action.endY, -1);
+						}
 						break;
 					case PRODUCE:
 						logger.game(Consts.PRODUCE_ID + " " + startEnd + " " + action.produceGameObjectType.getExternalId());
+						if (binaryLog != null) {
+							binaryLog.writeAction(PRODUCE_ID, action.startX, action.startY, action.endX, action.endY,
+									action.produceGameObjectType.getExternalId());
+						}
 						break;
 					case NONE:
 						break;
@@ -230,19 +289,48 @@ public class GameController {
 		startRound(activePlayer, false);
 	}
 
+	/**
+	 * Continue the game from a snapshot of the GameWorld taken at the start of a round (i.e. in
+	 * {@link NextPlayerHandler#onNextPlayer(Player)}). The active player of the snapshot starts playing
+	 * the round again, even if the game already ended.
+	 *
+	 * @param snapshot the snapshot to restore
+	 */
+	public void restoreRound(GameWorld snapshot) {
+		gameWorld.restore(snapshot);
+		gameEnded = false;
+		playerIterator = players.iterator();
+		while (playerIterator.hasNext()) {
+			activePlayer = playerIterator.next();
+			if (activePlayer == snapshot.getActivePlayer()) {
+				break;
+			}
+		}
+		fireOnNextPlayer(activePlayer);
+		try {
+			activePlayer.startPlaying();
+		} catch (ProtocolViolationException e) {
+			endGameAfterViolation();
+		}
+	}
+
+	/**
+	 * End the game because the active player violated the protocol, the actions he performed so far
+	 * are logged
+	 */
+	private void endGameAfterViolation() {
+		writeActionsLog();
+		writeChecksumLog();
+		endGame();
+	}
+
 	/**
 	 * Count the number of players that are still alive
 	 *
 	 * @return the number of players
 	 */
 	public int countLivingPlayers() {
-		int count = 0;
-		for (Player player : players) {
-			if (gameWorld.isPlayerStillAlive(player)) {
-				count++;
-			}
-		}
-		return count;
+		return gameWorld.countLivingPlayers();
 	}
 
 	/**
@@ -266,8 +354,22 @@ public class GameController {
 		try {
 			player.startPlaying();
 		} catch (ProtocolViolationException e) {
-			writeActionsLog();
-			endGame();
+			endGameAfterViolation();
+		}
+	}
+
+	/**
+	 * Play the whole game without waiting for frames: as soon as the active player finished his round
+	 * the next round is started. Returns when the game ended.
+	 *
+	 * @throws IllegalStateException if the active player does not finish his round on his own
+	 */
+	public void playUntilEnd() {
+		startGame();
+		while (!gameEnded) {
+			if (!activePlayer.finishRoundNow()) {
+				throw new IllegalStateException("Player " + activePlayer.getId() + " did not finish his round");
+			}
 		}
 	}
 
@@ -294,6 +396,10 @@ public class GameController {
 		return gameWorld;
 	}
 
+	public Rules getRules() {
+		return rules;
+	}
+
 	public Scenario getScenario() {
 		return scenario;
 	}
@@ -351,7 +457,7 @@ public class GameController {
 			XmlReader.Element root = reader.parse(new FileReader(file));
 			Scenario scenarioLoad = Scenario.getScanarioById(root.getAttribute("scenario"));
 			initScenario(scenarioLoad);
-			gameWorld.initScenario(scenarioLoad);
+			gameWorld.initScenario(scenarioLoad, rules);
 			XmlReader.Element playersXML = root.getChildByName("Players");
 			players.clear();
 			for (XmlReader.Element aPlayer : playersXML.getChildrenByName("Player")) {
@@ -3,29 +3,21 @@ package com.smeanox.games.sg002.world;
 import com.badlogic.gdx.utils.XmlReader;
 import com.badlogic.gdx.utils.XmlWriter;
 import com.smeanox.games.sg002.player.Player;
-import com.smeanox.games.sg002.util.Consts;
 import com.smeanox.games.sg002.world.Action.ActionType;
 
 import java.io.IOException;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Set;
 
 /**
- * Describes an active GameObject
+ * Describes an active GameObject. The state is stored in a {@link WorldState}, this is only a view on it.
+ * Objects that are not part of a GameWorld use {@link Rules#DEFAULT}
  *
  * @author Benjamin Schmid
  */
 public class GameObject {
-	private GameObjectType gameObjectType;
+	private WorldState worldState;
+	private int cell;
 	private int positionX;
 	private int positionY;
-	private Player player;
-
-	// Stats
-	private int hp;
-
-	private Set<ActionType> usedActions = new HashSet();
 
 	/**
 	 * Create a new instance and load the state from the given reader
@@ -33,6 +25,8 @@ public class GameObject {
 	 * @param reader the reader to read from
 	 */
 	public GameObject(XmlReader.Element reader) {
+		worldState = new WorldState(1, 1);
+		cell = 0;
 		load(reader);
 	}
 
@@ -43,49 +37,83 @@ public class GameObject {
 	 * @param player         the player which owns the object
 	 */
 	public GameObject(GameObjectType gameObjectType, Player player) {
-		this.gameObjectType = gameObjectType;
-		this.player = player;
-		this.hp = gameObjectType.getDefaultHP();
+		worldState = new WorldState(1, 1);
+		cell = 0;
+		worldState.place(cell, gameObjectType.getOrdinal(), worldState.registerPlayer(player),
+				gameObjectType.getDefaultHP(), 0);
+	}
+
+	/**
+	 * Create a view on a GameObject that is already stored in the given WorldState
+	 *
+	 * @param worldState the WorldState containing the GameObject
+	 * @param cell       the cell of the GameObject
+	 * @param positionX  position of the cell
+	 * @param positionY  position of the cell
+	 */
+	GameObject(WorldState worldState, int cell, int positionX, int positionY) {
+		this.worldState = worldState;
+		this.cell = cell;
+		this.positionX = positionX;
+		this.positionY = positionY;
+	}
+
+	/**
+	 * Copy the state of this object into the given WorldState and use it from now on
+	 *
+	 * @param newWorldState the WorldState to move to
+	 * @param newCell       the empty cell to occupy, has to correspond to the position
+	 */
+	void attach(WorldState newWorldState, int newCell) {
+		newWorldState.place(newCell, worldState.getTypeOrdinal(cell),
+				newWorldState.registerPlayer(getPlayer()), getHp(), worldState.getUsedActions(cell));
+		worldState = newWorldState;
+		cell = newCell;
+	}
+
+	/**
+	 * Inform the object that it was moved to another cell
+	 *
+	 * @param newCell   the new cell
+	 * @param positionX the new position
+	 * @param positionY the new position
+	 */
+	void relocate(int newCell, int positionX, int positionY) {
+		cell = newCell;
+		this.positionX = positionX;
+		this.positionY = positionY;
 	}
 
 	public GameObjectType getGameObjectType() {
-		return gameObjectType;
+		return worldState.getType(cell);
 	}
 
 	public int getHp() {
-		return hp;
+		return worldState.getHp(cell);
 	}
 
 	public void setHp(int hp) {
-		this.hp = hp;
+		worldState.setHp(cell, hp);
 	}
 
 	public void addHp(int hp) {
-		this.hp += hp;
+		worldState.setHp(cell, worldState.getHp(cell) + hp);
 	}
 
 	public int getPositionX() {
 		return positionX;
 	}
 
-	public void setPositionX(int positionX) {
-		this.positionX = positionX;
-	}
-
 	public int getPositionY() {
 		return positionY;
 	}
 
-	public void setPositionY(int positionY) {
-		this.positionY = positionY;
-	}
-
 	public Player getPlayer() {
-		return player;
+		return worldState.getPlayer(cell);
 	}
 
 	public void setPlayer(Player player) {
-		this.player = player;
+		worldState.setOwner(cell, worldState.registerPlayer(player));
 	}
 
 	/**
@@ -95,14 +123,14 @@ public class GameObject {
 	 * @return true if the action can be performed
 	 */
 	public boolean isCanDoAction(ActionType action) {
-		return !usedActions.contains(action) && gameObjectType.isCanDoAction(action);
+		return !wasUsed(action) && getGameObjectType().isCanDoAction(action);
 	}
 
 	/**
 	 * reenable all actions
 	 */
 	public void resetUsedActions() {
-		usedActions.clear();
+		worldState.setUsedActions(cell, 0);
 	}
 
 	/**
@@ -113,7 +141,7 @@ public class GameObject {
 	 */
 	public boolean wasUsed(ActionType action) {
 		if (action == null) return false;
-		return usedActions.contains(action);
+		return (worldState.getUsedActions(cell) & WorldState.actionBit(action)) != 0;
 	}
 
 	/**
@@ -123,10 +151,11 @@ public class GameObject {
 	 */
 	public void use(ActionType action) {
 		if (action == null) return;
-		usedActions.add(action);
 
-		if(!Consts.multipleActionsPerObject){
-			Collections.addAll(usedActions, ActionType.values());
+		if (worldState.getRules().isMultipleActionsPerObject()) {
+			worldState.setUsedActions(cell, worldState.getUsedActions(cell) | WorldState.actionBit(action));
+		} else {
+			worldState.setUsedActions(cell, WorldState.ALL_ACTIONS);
 		}
 	}
 
@@ -138,15 +167,18 @@ public class GameObject {
 	 * @return distance to the given field
 	 */
 	private int getDiff(int x, int y) {
-		int diffX, diffY, diffTot;
-		diffX = Math.abs(positionX - x);
-		diffY = Math.abs(positionY - y);
-		if (Consts.walkDiagonal) {
-			diffTot = Math.max(diffX, diffY);
-		} else {
-			diffTot = diffX + diffY;
-		}
-		return diffTot;
+		return worldState.getDiff(positionX, positionY, x, y);
+	}
+
+	/**
+	 * Return the offsets of all fields in reach for the given action
+	 *
+	 * @param action the action
+	 * @return the offsets as pairs (dx, dy)
+	 * @see GameObjectType#getOffsets(ActionType, boolean)
+	 */
+	public int[] getOffsets(ActionType action) {
+		return getGameObjectType().getOffsets(action, worldState.getRules().isWalkDiagonal());
 	}
 
 	/**
@@ -157,10 +189,7 @@ public class GameObject {
 	 * @return true if the object can move to this position
 	 */
 	public boolean canMoveTo(int x, int y) {
-		int diffTot = getDiff(x, y);
-		return gameObjectType.isCanDoAction(ActionType.MOVE)
-				&& diffTot >= gameObjectType.getRadiusWalkMin()
-				&& diffTot <= gameObjectType.getRadiusWalkMax();
+		return getGameObjectType().isWithinRadius(ActionType.MOVE, getDiff(x, y));
 	}
 
 	/**
@@ -171,10 +200,7 @@ public class GameObject {
 	 * @return true if the object can produce to this position
 	 */
 	public boolean canProduceTo(int x, int y) {
-		int diffTot = getDiff(x, y);
-		return gameObjectType.isCanDoAction(ActionType.PRODUCE)
-				&& diffTot >= gameObjectType.getRadiusProduceMin()
-				&& diffTot <= gameObjectType.getRadiusProduceMax();
+		return getGameObjectType().isWithinRadius(ActionType.PRODUCE, getDiff(x, y));
 	}
 
 	/**
@@ -185,10 +211,7 @@ public class GameObject {
 	 * @return true if the object can fight this position
 	 */
 	public boolean canFightTo(int x, int y) {
-		int diffTot = getDiff(x, y);
-		return gameObjectType.isCanDoAction(ActionType.FIGHT)
-				&& diffTot >= gameObjectType.getRadiusFightMin()
-				&& diffTot <= gameObjectType.getRadiusFightMax();
+		return getGameObjectType().isWithinRadius(ActionType.FIGHT, getDiff(x, y));
 	}
 
 	/**
@@ -198,10 +221,10 @@ public class GameObject {
 	 * @return true if the GameObject can be fought
 	 */
 	public boolean canFight(GameObject gameObject) {
-		return gameObjectType.isCanFight()
+		return getGameObjectType().isCanFight()
 				&& canFightTo(gameObject.getPositionX(), gameObject.getPositionY())
-				&& !usedActions.contains(ActionType.FIGHT)
-				&& gameObject.getPlayer() != player;
+				&& !wasUsed(ActionType.FIGHT)
+				&& gameObject.getPlayer() != getPlayer();
 	}
 
 	/**
@@ -215,7 +238,7 @@ public class GameObject {
 			return 0;
 		}
 
-		int damage = -gameObjectType.getDamage(gameObject.getGameObjectType());
+		int damage = -getGameObjectType().getDamage(gameObject.getGameObjectType());
 		gameObject.addHp(damage);
 		return damage;
 	}
@@ -228,14 +251,16 @@ public class GameObject {
 	public void save(XmlWriter writer) throws IOException {
 		writer.attribute("x", positionX);
 		writer.attribute("y", positionY);
-		writer.attribute("hp", hp);
-		writer.attribute("gameObjectType", gameObjectType.getId());
-		writer.attribute("player", player.getId());
+		writer.attribute("hp", getHp());
+		writer.attribute("gameObjectType", getGameObjectType().getId());
+		writer.attribute("player", getPlayer().getId());
 		writer.element("usedActions");
-		for (ActionType action : usedActions) {
-			writer.element("action");
-			writer.attribute("name", action.name());
-			writer.pop();
+		for (ActionType action : ActionType.values()) {
+			if (wasUsed(action)) {
+				writer.element("action");
+				writer.attribute("name", action.name());
+				writer.pop();
+			}
 		}
 		writer.pop();
 	}
@@ -248,11 +273,14 @@ public class GameObject {
 	public void load(XmlReader.Element reader) {
 		positionX = reader.getIntAttribute("x");
 		positionY = reader.getIntAttribute("y");
-		hp = reader.getIntAttribute("hp");
-		gameObjectType = GameObjectType.getGameObjectTypeById(reader.getAttribute("gameObjectType"));
-		player = Player.getPlayerById(reader.getIntAttribute("player"));
+		GameObjectType gameObjectType = GameObjectType.getGameObjectTypeById(reader.getAttribute("gameObjectType"));
+		Player player = Player.getPlayerById(reader.getIntAttribute("player"));
+		int usedActions = 0;
 		for (XmlReader.Element element : reader.getChildByName("usedActions").getChildrenByName("action")) {
-			usedActions.add(ActionType.valueOf(element.getAttribute("name")));
+			usedActions |= WorldState.actionBit(ActionType.valueOf(element.getAttribute("name")));
 		}
+		worldState.remove(cell);
+		worldState.place(cell, gameObjectType.getOrdinal(), worldState.registerPlayer(player),
+				reader.getIntAttribute("hp"), usedActions);
 	}
 }
@@ -3,11 +3,13 @@ package com.smeanox.games.sg002.world;
 import com.badlogic.gdx.graphics.Texture;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.Map;
 
 /**
  * Defines stats &amp; co. for a GameObjectTye
@@ -16,8 +18,14 @@ import java.util.LinkedList;
  */
 public class GameObjectType {
 	private static HashMap<String, GameObjectType> idToGameObjectType = new HashMap<String, GameObjectType>();
+	private static ArrayList<GameObjectType> ordinalToGameObjectType = new ArrayList<GameObjectType>();
 	private static GameObjectType startGameObjectType;
 
+	// dense tables, only available while the registry is frozen
+	private static int[][] damageMatrix;
+	private static GameObjectType[] externalIdToGameObjectType;
+
+	private int ordinal;
 	private int externalId;
 	private String id;
 	private String name;
@@ -39,6 +47,9 @@ public class GameObjectType {
 	private HashMap<GameObjectType, Integer> damageTable;
 	private boolean canProduce;
 	private ArrayList<GameObjectType> canProduceList;
+	private BitSet canProduceSet;
+	// offsets per distance metric and action, calculated on first use
+	private final int[][][] offsets;
 
 	public GameObjectType(
 			int externalId,
@@ -77,11 +88,19 @@ public class GameObjectType {
 		this.damageTable = damageTable;
 		this.canProduce = canProduce;
 		this.canProduceList = canProduceList;
+		offsets = new int[2][Action.ActionType.values().length][];
 
 		idToGameObjectType.put(id, this);
+		ordinal = ordinalToGameObjectType.size();
+		ordinalToGameObjectType.add(this);
+		unfreezeRegistry();
 	}
 
 	// Getter
+	public int getOrdinal() {
+		return ordinal;
+	}
+
 	public int getExternalId(){
 		return externalId;
 	}
@@ -160,9 +179,19 @@ public class GameObjectType {
 
 	public void addDamageTableEntry(GameObjectType gameObjectType, int damage) {
 		damageTable.put(gameObjectType, damage);
+		unfreezeRegistry();
 	}
 
+	/**
+	 * Return the damage this GameObjectType deals to the given one
+	 *
+	 * @param gameObjectType the attacked type
+	 * @return the damage
+	 */
 	public int getDamage(GameObjectType gameObjectType) {
+		if (damageMatrix != null) {
+			return damageMatrix[ordinal][gameObjectType.ordinal];
+		}
 		return damageTable.get(gameObjectType);
 	}
 
@@ -172,6 +201,88 @@ public class GameObjectType {
 
 	public void addCanProduceEntry(GameObjectType gameObjectType) {
 		canProduceList.add(gameObjectType);
+		unfreezeRegistry();
+	}
+
+	/**
+	 * Checks whether this GameObjectType may produce the given one
+	 *
+	 * @param gameObjectType the type to produce, may be null
+	 * @return true if it may produce it
+	 */
+	public boolean canProduce(GameObjectType gameObjectType) {
+		if (gameObjectType == null) {
+			return false;
+		}
+		if (canProduceSet != null) {
+			return canProduceSet.get(gameObjectType.ordinal);
+		}
+		return canProduceList.contains(gameObjectType);
+	}
+
+	/**
+	 * Build the dense tables for damage, production and external ids and calculate all offset rings.
+	 * Has to be called after all GameObjectTypes are read, every later change to the registry discards
+	 * the tables again. Afterwards the registry is only read, so it can be shared by concurrent games.
+	 */
+	public static void freezeRegistry() {
+		int count = ordinalToGameObjectType.size();
+		int maxExternalId = -1;
+		int[][] newDamageMatrix = new int[count][count];
+		for (GameObjectType gameObjectType : ordinalToGameObjectType) {
+			for (Map.Entry<GameObjectType, Integer> entry : gameObjectType.damageTable.entrySet()) {
+				newDamageMatrix[gameObjectType.ordinal][entry.getKey().ordinal] = entry.getValue();
+			}
+			gameObjectType.canProduceSet = new BitSet(count);
+			for (GameObjectType produceGameObjectType : gameObjectType.canProduceList) {
+				gameObjectType.canProduceSet.set(produceGameObjectType.ordinal);
+			}
+			maxExternalId = Math.max(maxExternalId, gameObjectType.externalId);
+			for (Action.ActionType actionType : Action.ActionType.values()) {
+				gameObjectType.getOffsets(actionType, false);
+				gameObjectType.getOffsets(actionType, true);
+			}
+		}
+		externalIdToGameObjectType = new GameObjectType[maxExternalId + 1];
+		for (GameObjectType gameObjectType : ordinalToGameObjectType) {
+			if (gameObjectType.externalId >= 0) {
+				externalIdToGameObjectType[gameObjectType.externalId] = gameObjectType;
+			}
+		}
+		damageMatrix = newDamageMatrix;
+	}
+
+	/**
+	 * Discard the dense tables, the lookups fall back to the maps and lists
+	 */
+	private static void unfreezeRegistry() {
+		if (externalIdToGameObjectType == null) {
+			return;
+		}
+		damageMatrix = null;
+		externalIdToGameObjectType = null;
+		for (GameObjectType gameObjectType : ordinalToGameObjectType) {
+			gameObjectType.canProduceSet = null;
+		}
+	}
+
+	/**
+	 * returns the GameObjectType with the given external id
+	 *
+	 * @param externalId the external id
+	 * @return the GameObjectType or null if it doesn't exist
+	 */
+	public static GameObjectType getGameObjectTypeByExternalId(int externalId) {
+		GameObjectType[] table = externalIdToGameObjectType;
+		if (table != null) {
+			return externalId >= 0 && externalId < table.length ? table[externalId] : null;
+		}
+		for (GameObjectType gameObjectType : ordinalToGameObjectType) {
+			if (gameObjectType.externalId == externalId) {
+				return gameObjectType;
+			}
+		}
+		return null;
 	}
 
 	/**
@@ -184,6 +295,25 @@ public class GameObjectType {
 		return idToGameObjectType.get(id);
 	}
 
+	/**
+	 * returns the GameObjectType with the given ordinal
+	 *
+	 * @param ordinal ordinal of the gameObjectType
+	 * @return the GameObjectType
+	 */
+	public static GameObjectType getGameObjectTypeByOrdinal(int ordinal) {
+		return ordinalToGameObjectType.get(ordinal);
+	}
+
+	/**
+	 * returns the number of GameObjectTypes, all ordinals are smaller than this
+	 *
+	 * @return the number of GameObjectTypes
+	 */
+	public static int getGameObjectTypeCount() {
+		return ordinalToGameObjectType.size();
+	}
+
 	/**
 	 * returns all GameObjectTypes
 	 *
@@ -217,6 +347,77 @@ public class GameObjectType {
 		GameObjectType.startGameObjectType = startGameObjectType;
 	}
 
+	/**
+	 * Checks whether this GameObjectType can perform the given action over the given distance
+	 *
+	 * @param action   the action (MOVE, FIGHT or PRODUCE)
+	 * @param distance the distance to the target field
+	 * @return true if it can perform the action
+	 */
+	public boolean isWithinRadius(Action.ActionType action, int distance) {
+		switch (action) {
+			case MOVE:
+				return isCanDoAction(action) && distance >= radiusWalkMin && distance <= radiusWalkMax;
+			case FIGHT:
+				return isCanDoAction(action) && distance >= radiusFightMin && distance <= radiusFightMax;
+			case PRODUCE:
+				return isCanDoAction(action) && distance >= radiusProduceMin && distance <= radiusProduceMax;
+		}
+		return false;
+	}
+
+	/**
+	 * Return the maximal distance over which this GameObjectType can perform the given action
+	 *
+	 * @param action the action (MOVE, FIGHT or PRODUCE)
+	 * @return the maximal distance
+	 */
+	public int getRadiusMax(Action.ActionType action) {
+		switch (action) {
+			case MOVE:
+				return radiusWalkMax;
+			case FIGHT:
+				return radiusFightMax;
+			case PRODUCE:
+				return radiusProduceMax;
+		}
+		return 0;
+	}
+
+	/**
+	 * Return all offsets to fields this GameObjectType can perform the given action to, i.e. the ring between
+	 * the minimal and the maximal radius of the action.
+	 * <br>
+	 * The offsets are stored as pairs (dx, dy) and sorted by dy first and dx second. They are calculated
+	 * once per distance metric, the returned array must not be modified.
+	 *
+	 * @param action       the action (MOVE, FIGHT or PRODUCE)
+	 * @param walkDiagonal the distance metric, see {@link com.smeanox.games.sg002.util.Consts#walkDiagonal}
+	 * @return the offsets
+	 */
+	public int[] getOffsets(Action.ActionType action, boolean walkDiagonal) {
+		int metric = walkDiagonal ? 1 : 0;
+		int[] ring = offsets[metric][action.ordinal()];
+		if (ring == null) {
+			int radius = getRadiusMax(action);
+			int count = 0;
+			ring = new int[2 * (2 * radius + 1) * (2 * radius + 1)];
+			for (int dy = -radius; dy <= radius; dy++) {
+				for (int dx = -radius; dx <= radius; dx++) {
+					if (isWithinRadius(action, WorldState.getDistance(dx, dy, walkDiagonal))) {
+						ring[count++] = dx;
+						ring[count++] = dy;
+					}
+				}
+			}
+			int[] trimmed = new int[count];
+			System.arraycopy(ring, 0, trimmed, 0, count);
+			ring = trimmed;
+			offsets[metric][action.ordinal()] = ring;
+		}
+		return ring;
+	}
+
 	/**
 	 * Checks whether this GameObjectType can perform the given action
 	 * @param action the action
@@ -8,10 +8,13 @@ import com.smeanox.games.sg002.player.Player;
 import com.smeanox.games.sg002.util.Consts;
 
 import java.io.IOException;
+import java.util.AbstractCollection;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 /**
  * Contains all information about the active game
@@ -22,39 +25,135 @@ public class GameWorld {
 	private int mapSizeX;
 	private int mapSizeY;
 
+	private WorldState worldState;
 	private GameObject[][] worldGameObjects;
 	private MapObject[][] worldMapObjects;
 
 	private Player activePlayer;
-	private final HashSet<GameObject> gameObjects;
+	private final Collection<GameObject> gameObjects;
 
 	private final Map<Player, LinkedList<Action>> playerActions;
 
+	private final UndoJournal undoJournal;
+	private boolean recording;
+
+	// snapshots keep the money only in their world state instead of writing it to the players
+	private final boolean detached;
+
 	private Scenario scenario;
+	private Rules rules;
 
 	/**
 	 * Create a new instance
 	 *
 	 * @param scenario the scenario to use
+	 * @param rules    the rules of the game
 	 */
-	public GameWorld(Scenario scenario) {
-		initScenario(scenario);
+	public GameWorld(Scenario scenario, Rules rules) {
+		initScenario(scenario, rules);
+
+		gameObjects = new GameObjectCollection();
+		playerActions = new HashMap<Player, LinkedList<Action>>();
+		undoJournal = new UndoJournal();
+		recording = false;
+		detached = false;
+	}
 
-		gameObjects = new HashSet<GameObject>();
+	/**
+	 * Create a detached copy of the given instance
+	 *
+	 * @param original the instance to copy
+	 */
+	private GameWorld(GameWorld original) {
+		scenario = original.scenario;
+		rules = original.rules;
+		mapSizeX = original.mapSizeX;
+		mapSizeY = original.mapSizeY;
+		// MapObjects do not change during a game
+		worldMapObjects = original.worldMapObjects;
+
+		gameObjects = new GameObjectCollection();
 		playerActions = new HashMap<Player, LinkedList<Action>>();
+		undoJournal = new UndoJournal();
+		recording = false;
+		detached = true;
+
+		copyState(original);
+	}
+
+	/**
+	 * Copy the GameObjects, the money, the active player and the performed actions of the given instance
+	 *
+	 * @param original the instance to copy
+	 */
+	private void copyState(GameWorld original) {
+		worldState = new WorldState(original.worldState);
+		worldGameObjects = new GameObject[mapSizeY][mapSizeX];
+		for (int i = 0; i < worldState.getLiveCount(); i++) {
+			int cell = worldState.getLiveCell(i);
+			worldGameObjects[cell / mapSizeX][cell % mapSizeX] = new GameObject(worldState, cell, cell % mapSizeX, cell / mapSizeX);
+		}
+
+		activePlayer = original.activePlayer;
+		playerActions.clear();
+		for (Map.Entry<Player, LinkedList<Action>> entry : original.playerActions.entrySet()) {
+			LinkedList<Action> actions = new LinkedList<Action>();
+			for (Action action : entry.getValue()) {
+				actions.add(new Action(action.actionType, action.startX, action.startY, action.endX, action.endY,
+						action.produceGameObjectType));
+			}
+			playerActions.put(entry.getKey(), actions);
+		}
+	}
+
+	/**
+	 * Create a fully detached, mutable copy of this GameWorld. The cost is proportional to the number of
+	 * GameObjects, not to the size of the map.
+	 * <br>
+	 * The copy keeps the money of the players and the performed actions on its own, so it can be simulated
+	 * concurrently to this instance. Players are only used as identities.
+	 *
+	 * @return the copy
+	 */
+	public GameWorld snapshot() {
+		return new GameWorld(this);
+	}
+
+	/**
+	 * Reset this GameWorld to the state of the given snapshot, which has to be taken from this instance.
+	 * The snapshot is copied, so it can be restored again later. Unless this is a snapshot itself the money
+	 * of the players is updated as well.
+	 *
+	 * @param snapshot the snapshot to restore
+	 */
+	public void restore(GameWorld snapshot) {
+		if (snapshot.mapSizeX != mapSizeX || snapshot.mapSizeY != mapSizeY) {
+			throw new IllegalArgumentException("the snapshot was taken from a different GameWorld");
+		}
+		undoJournal.clear();
+		recording = false;
+		copyState(snapshot);
+		if (!detached) {
+			for (int i = 0; i < worldState.getPlayerCount(); i++) {
+				worldState.getPlayerBySlot(i).setMoney(worldState.getMoney(i));
+			}
+		}
 	}
 
 	/**
 	 * initializes the values using the given scenario
 	 *
 	 * @param scenario the scenario to use
+	 * @param rules    the rules of the game
 	 */
-	public void initScenario(Scenario scenario) {
+	public void initScenario(Scenario scenario, Rules rules) {
 		this.scenario = scenario;
+		this.rules = rules;
 
 		mapSizeX = scenario.getMapSizeX();
 		mapSizeY = scenario.getMapSizeY();
 
+		worldState = new WorldState(mapSizeX, mapSizeY, rules);
 		worldGameObjects = new GameObject[mapSizeY][mapSizeX];
 		worldMapObjects = new MapObject[mapSizeY][mapSizeX];
 		for (int y = 0; y < mapSizeY; y++) {
@@ -67,6 +166,10 @@ public class GameWorld {
 		}
 	}
 
+	public Rules getRules() {
+		return rules;
+	}
+
 	public int getMapSizeX() {
 		return mapSizeX;
 	}
@@ -79,7 +182,12 @@ public class GameWorld {
 		return activePlayer;
 	}
 
-	public HashSet<GameObject> getGameObjects() {
+	/**
+	 * Return all GameObjects on the map
+	 *
+	 * @return a read only collection backed by the world state
+	 */
+	public Collection<GameObject> getGameObjects() {
 		return gameObjects;
 	}
 
@@ -97,6 +205,31 @@ public class GameWorld {
 		return worldGameObjects[y][x];
 	}
 
+	WorldState getWorldState() {
+		return worldState;
+	}
+
+	/**
+	 * Return the 64-bit Zobrist hash of the GameObjects, the money of all players and the active player.
+	 * The hash is updated incrementally and is the same in every run of the same scenario.
+	 *
+	 * @return the hash
+	 */
+	public long getHash() {
+		return worldState.getHash();
+	}
+
+	/**
+	 * Return a checksum of the GameObjects (type, owner and hp) and the money of all players. It is
+	 * calculated from scratch and does not depend on the seed of the rules, so it is used to check that
+	 * a replay is in the same state as the logged game.
+	 *
+	 * @return the checksum
+	 */
+	public long getChecksum() {
+		return worldState.computeChecksum();
+	}
+
 	/**
 	 * Return the MapObject at the given position or null if there is no MapObject
 	 *
@@ -133,10 +266,26 @@ public class GameWorld {
 		int x, y;
 		x = scenario.getStartPos(player.getId()).x;
 		y = scenario.getStartPos(player.getId()).y;
-		worldGameObjects[y][x] = new GameObject(gameObjectType, player);
-		worldGameObjects[y][x].setPositionX(x);
-		worldGameObjects[y][x].setPositionY(y);
-		gameObjects.add(worldGameObjects[y][x]);
+		addGameObject(x, y, gameObjectType, worldState.registerPlayer(player), 0);
+	}
+
+	/**
+	 * Put a new GameObject on the given empty field
+	 *
+	 * @param x              position
+	 * @param y              position
+	 * @param gameObjectType the type of the new object
+	 * @param owner          slot of the owning player in the world state
+	 * @param usedActions    mask of the actions that were already used
+	 */
+	private void addGameObject(int x, int y, GameObjectType gameObjectType, int owner, int usedActions) {
+		int cell = worldState.index(x, y);
+		if (recording) {
+			undoJournal.push(cell);
+			undoJournal.push(UndoJournal.OP_PLACE);
+		}
+		worldState.place(cell, gameObjectType.getOrdinal(), owner, gameObjectType.getDefaultHP(), usedActions);
+		worldGameObjects[y][x] = new GameObject(worldState, cell, x, y);
 	}
 
 	/**
@@ -146,13 +295,14 @@ public class GameWorld {
 	 * @param reenableUsedActions whether usedActions should be cleared
 	 */
 	public void startRound(Player activePlayer, boolean reenableUsedActions) {
+		undoJournal.clear();
+		recording = false;
 		this.activePlayer = activePlayer;
+		worldState.setActiveSlot(worldState.registerPlayer(activePlayer));
 		if (reenableUsedActions) {
-			for (GameObject go : gameObjects) {
-				go.resetUsedActions();
-			}
+			worldState.resetUsedActions();
 		}
-		activePlayer.addMoney(calcMoneyPerRound(activePlayer));
+		setMoney(activePlayer, getMoney(activePlayer) + calcMoneyPerRound(activePlayer));
 		if (!playerActions.containsKey(activePlayer)) {
 			playerActions.put(activePlayer, new LinkedList<Action>());
 		}
@@ -161,18 +311,18 @@ public class GameWorld {
 
 	/**
 	 * Return the amount the given player receives per round
+	 * <br>
+	 * The amount is maintained incrementally, so this is O(1)
 	 *
 	 * @param activePlayer the player for which the amount should be calculated
 	 * @return the amount the player receives per round
 	 */
 	private int calcMoneyPerRound(Player activePlayer) {
-		int sol = 0;
-		for (GameObject gameObject : gameObjects) {
-			if (gameObject.getPlayer() == activePlayer) {
-				sol += gameObject.getGameObjectType().getValuePerRound();
-			}
+		int owner = worldState.getPlayerSlot(activePlayer);
+		if (owner < 0) {
+			return 0;
 		}
-		return sol;
+		return worldState.getIncome(owner);
 	}
 
 	/**
@@ -193,6 +343,218 @@ public class GameWorld {
 		return false;
 	}
 
+	/**
+	 * Enumerate all legal actions of the given player. Nothing is allocated, the actions are passed to the
+	 * sink, which usually is a reused {@link ActionBuffer}.
+	 *
+	 * @param player the player, only the active player has legal actions
+	 * @param sink   the sink receiving the actions
+	 * @return the number of legal actions
+	 */
+	public int generateLegalActions(Player player, ActionSink sink) {
+		if (player != activePlayer) {
+			return 0;
+		}
+		int slot = worldState.getPlayerSlot(player);
+		if (slot < 0) {
+			return 0;
+		}
+		int count = 0;
+		for (int i = 0; i < worldState.getLiveCount(); i++) {
+			int cell = worldState.getLiveCell(i);
+			if (worldState.getOwner(cell) != slot) {
+				continue;
+			}
+			int x = cell % mapSizeX;
+			int y = cell / mapSizeX;
+			GameObjectType gameObjectType = worldState.getType(cell);
+			int[] offsets;
+			if (isCanDoAction(cell, Action.ActionType.MOVE)) {
+				offsets = gameObjectType.getOffsets(Action.ActionType.MOVE, rules.isWalkDiagonal());
+				for (int j = 0; j < offsets.length; j += 2) {
+					if (canMove(x, y, x + offsets[j], y + offsets[j + 1])) {
+						sink.addAction(Action.ActionType.MOVE, x, y, x + offsets[j], y + offsets[j + 1], null);
+						count++;
+					}
+				}
+			}
+			if (isCanDoAction(cell, Action.ActionType.FIGHT)) {
+				offsets = gameObjectType.getOffsets(Action.ActionType.FIGHT, rules.isWalkDiagonal());
+				for (int j = 0; j < offsets.length; j += 2) {
+					if (canFight(x, y, x + offsets[j], y + offsets[j + 1])) {
+						sink.addAction(Action.ActionType.FIGHT, x, y, x + offsets[j], y + offsets[j + 1], null);
+						count++;
+					}
+				}
+			}
+			if (isCanDoAction(cell, Action.ActionType.PRODUCE)) {
+				offsets = gameObjectType.getOffsets(Action.ActionType.PRODUCE, rules.isWalkDiagonal());
+				for (int k = 0; k < gameObjectType.getCanProduceList().size(); k++) {
+					GameObjectType produceGameObjectType = gameObjectType.getCanProduceList().get(k);
+					for (int j = 0; j < offsets.length; j += 2) {
+						if (canProduce(x, y, x + offsets[j], y + offsets[j + 1], produceGameObjectType)) {
+							sink.addAction(Action.ActionType.PRODUCE, x, y, x + offsets[j], y + offsets[j + 1],
+									produceGameObjectType);
+							count++;
+						}
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * execute the given action and record everything that is needed to undo it
+	 * <br>
+	 * The returned token can be passed to {@link #undo(int)}. Tokens have to be undone in the reverse
+	 * order they were created and are only valid until the next call of {@link #startRound(Player, boolean)}.
+	 *
+	 * @param action the action
+	 * @return the token to undo the action or -1 if the action was not successful
+	 */
+	public int apply(Action action) {
+		int token = undoJournal.mark();
+		recording = true;
+		if (!doAction(action)) {
+			undo(token);
+			return -1;
+		}
+		return token;
+	}
+
+	/**
+	 * Undo all actions applied since the given token was returned by {@link #apply(Action)}. Restores hp,
+	 * positions, used actions, money, removed GameObjects, ownership and the performed actions exactly.
+	 *
+	 * @param token the token, -1 is ignored
+	 */
+	public void undo(int token) {
+		if (token < 0) {
+			return;
+		}
+		while (undoJournal.mark() > token) {
+			int cell;
+			switch (undoJournal.pop()) {
+				case UndoJournal.OP_MOVE: {
+					int to = undoJournal.pop();
+					int from = undoJournal.pop();
+					worldState.move(to, from);
+					GameObject gameObject = worldGameObjects[to / mapSizeX][to % mapSizeX];
+					worldGameObjects[to / mapSizeX][to % mapSizeX] = null;
+					worldGameObjects[from / mapSizeX][from % mapSizeX] = gameObject;
+					gameObject.relocate(from, from % mapSizeX, from / mapSizeX);
+					break;
+				}
+				case UndoJournal.OP_USED: {
+					int usedEpoch = undoJournal.pop();
+					int usedActions = undoJournal.pop();
+					cell = undoJournal.pop();
+					worldState.setRawUsedActions(cell, usedActions, usedEpoch);
+					break;
+				}
+				case UndoJournal.OP_HP: {
+					int hp = undoJournal.pop();
+					cell = undoJournal.pop();
+					worldState.setHp(cell, hp);
+					break;
+				}
+				case UndoJournal.OP_PLACE:
+					cell = undoJournal.pop();
+					worldState.remove(cell);
+					worldGameObjects[cell / mapSizeX][cell % mapSizeX] = null;
+					break;
+				case UndoJournal.OP_REMOVE: {
+					int index = undoJournal.pop();
+					int usedEpoch = undoJournal.pop();
+					int usedActions = undoJournal.pop();
+					int hp = undoJournal.pop();
+					int owner = undoJournal.pop();
+					int typeOrdinal = undoJournal.pop();
+					cell = undoJournal.pop();
+					worldState.restore(cell, typeOrdinal, owner, hp, usedActions, usedEpoch, index);
+					GameObject gameObject = undoJournal.popRemoved();
+					if (gameObject == null) {
+						gameObject = new GameObject(worldState, cell, cell % mapSizeX, cell / mapSizeX);
+					}
+					worldGameObjects[cell / mapSizeX][cell % mapSizeX] = gameObject;
+					break;
+				}
+				case UndoJournal.OP_OWNER: {
+					int owner = undoJournal.pop();
+					cell = undoJournal.pop();
+					worldState.setOwner(cell, owner);
+					break;
+				}
+				case UndoJournal.OP_MONEY: {
+					int money = undoJournal.pop();
+					int slot = undoJournal.pop();
+					setMoney(worldState.getPlayerBySlot(slot), money);
+					break;
+				}
+				case UndoJournal.OP_ACTION:
+					playerActions.get(worldState.getPlayerBySlot(undoJournal.pop())).removeLast();
+					break;
+			}
+		}
+		recording = !undoJournal.isEmpty();
+	}
+
+	/**
+	 * Return the money the given player has in this GameWorld
+	 *
+	 * @param player the player
+	 * @return the money
+	 */
+	public int getMoney(Player player) {
+		int slot = worldState.getPlayerSlot(player);
+		if (slot < 0) {
+			return player.getMoney();
+		}
+		return worldState.getMoney(slot);
+	}
+
+	/**
+	 * Set the money of the given player, unless this is a snapshot the player is updated as well
+	 *
+	 * @param player the player
+	 * @param money  the new amount
+	 */
+	private void setMoney(Player player, int money) {
+		worldState.setMoney(worldState.registerPlayer(player), money);
+		if (!detached) {
+			player.setMoney(money);
+		}
+	}
+
+	/**
+	 * Add money to the given player
+	 *
+	 * @param player the player
+	 * @param amount the amount to add
+	 */
+	private void addMoney(Player player, int amount) {
+		if (recording) {
+			undoJournal.push(worldState.registerPlayer(player));
+			undoJournal.push(getMoney(player));
+			undoJournal.push(UndoJournal.OP_MONEY);
+		}
+		setMoney(player, getMoney(player) + amount);
+	}
+
+	/**
+	 * Add the action to the list of performed actions of the active player
+	 *
+	 * @param action the action
+	 */
+	private void logAction(Action action) {
+		if (recording) {
+			undoJournal.push(worldState.registerPlayer(getActivePlayer()));
+			undoJournal.push(UndoJournal.OP_ACTION);
+		}
+		playerActions.get(getActivePlayer()).add(action);
+	}
+
 	/**
 	 * Check if a player is still alive
 	 *
@@ -200,12 +562,46 @@ public class GameWorld {
 	 * @return true if the player didn't lose yet
 	 */
 	public boolean isPlayerStillAlive(Player player) {
-		for (GameObject gameObject : gameObjects) {
-			if (gameObject.getPlayer() == player) {
-				return true;
-			}
+		int owner = worldState.getPlayerSlot(player);
+		return owner >= 0 && worldState.getObjectCount(owner) > 0;
+	}
+
+	/**
+	 * Return the number of players that own at least one GameObject
+	 *
+	 * @return the number of players
+	 */
+	public int countLivingPlayers() {
+		return worldState.getLivingPlayerCount();
+	}
+
+	/**
+	 * Count all GameObjects of the given player
+	 *
+	 * @param player the player
+	 * @return the number of GameObjects
+	 */
+	public int countGameObjects(Player player) {
+		int owner = worldState.getPlayerSlot(player);
+		if (owner < 0) {
+			return 0;
 		}
-		return false;
+		return worldState.getObjectCount(owner);
+	}
+
+	/**
+	 * Count all GameObjects of the given player of the given type
+	 *
+	 * @param player         the player
+	 * @param gameObjectType the type
+	 * @return the number of GameObjects
+	 */
+	public int countGameObjects(Player player, GameObjectType gameObjectType) {
+		int owner = worldState.getPlayerSlot(player);
+		if (owner < 0) {
+			return 0;
+		}
+		return worldState.getObjectCount(owner, gameObjectType.getOrdinal());
 	}
 
 
@@ -216,9 +612,19 @@ public class GameWorld {
 	 * @param y coordinates
 	 */
 	public void removeGameObject(int x, int y) {
-		if (worldGameObjects[y][x] != null) {
-			gameObjects.remove(worldGameObjects[y][x]);
-		}
+		int cell = worldState.index(x, y);
+		if (recording && !worldState.isEmpty(cell)) {
+			undoJournal.push(cell);
+			undoJournal.push(worldState.getTypeOrdinal(cell));
+			undoJournal.push(worldState.getOwner(cell));
+			undoJournal.push(worldState.getHp(cell));
+			undoJournal.push(worldState.getRawUsedActions(cell));
+			undoJournal.push(worldState.getUsedEpoch(cell));
+			undoJournal.push(worldState.getLiveIndex(cell));
+			undoJournal.push(UndoJournal.OP_REMOVE);
+			undoJournal.pushRemoved(worldGameObjects[y][x]);
+		}
+		worldState.remove(cell);
 		worldGameObjects[y][x] = null;
 	}
 
@@ -230,20 +636,61 @@ public class GameWorld {
 	 * @return true if all actions were used
 	 */
 	public boolean wasUsed(int x, int y) {
-		try {
-			/*if (x < 0 || y < 0 || x >= mapSizeX || y >= mapSizeY) {
-				return true;//what happened here?
-			}
-			if (worldGameObjects[x][y] == null) return true; //this shouldn't happen either*/
-			return !worldGameObjects[y][x].isCanDoAction(Action.ActionType.MOVE) &&
-					!worldGameObjects[y][x].isCanDoAction(Action.ActionType.PRODUCE) &&
-					!worldGameObjects[y][x].isCanDoAction(Action.ActionType.FIGHT);
-		} catch (NullPointerException ex) {
-			ex.printStackTrace();
-		} catch (IndexOutOfBoundsException ex) { // java 6 compatibility
-			ex.printStackTrace();
+		if (x < 0 || y < 0 || x >= mapSizeX || y >= mapSizeY) {
+			return true;
+		}
+		int cell = worldState.index(x, y);
+		if (worldState.isEmpty(cell)) {
+			return true;
+		}
+		return !isCanDoAction(cell, Action.ActionType.MOVE) &&
+				!isCanDoAction(cell, Action.ActionType.PRODUCE) &&
+				!isCanDoAction(cell, Action.ActionType.FIGHT);
+	}
+
+	/**
+	 * Whether the GameObject on the given cell can do the given action in its current state
+	 *
+	 * @param cell   the occupied cell
+	 * @param action the action
+	 * @return true if the action can be performed
+	 * @see GameObject#isCanDoAction(Action.ActionType)
+	 */
+	private boolean isCanDoAction(int cell, Action.ActionType action) {
+		return !isUsed(cell, action) && worldState.getType(cell).isCanDoAction(action);
+	}
+
+	/**
+	 * Check whether the GameObject on the given cell already used the given action
+	 *
+	 * @param cell   the occupied cell
+	 * @param action the action
+	 * @return true if it was already used
+	 * @see GameObject#wasUsed(Action.ActionType)
+	 */
+	private boolean isUsed(int cell, Action.ActionType action) {
+		return (worldState.getUsedActions(cell) & WorldState.actionBit(action)) != 0;
+	}
+
+	/**
+	 * Mark the given action as used for the GameObject on the given cell
+	 *
+	 * @param cell   the occupied cell
+	 * @param action the action
+	 * @see GameObject#use(Action.ActionType)
+	 */
+	private void use(int cell, Action.ActionType action) {
+		if (recording) {
+			undoJournal.push(cell);
+			undoJournal.push(worldState.getRawUsedActions(cell));
+			undoJournal.push(worldState.getUsedEpoch(cell));
+			undoJournal.push(UndoJournal.OP_USED);
+		}
+		if (rules.isMultipleActionsPerObject()) {
+			worldState.setUsedActions(cell, worldState.getUsedActions(cell) | WorldState.actionBit(action));
+		} else {
+			worldState.setUsedActions(cell, WorldState.ALL_ACTIONS);
 		}
-		return true;
 	}
 
 	/**
@@ -263,21 +710,23 @@ public class GameWorld {
 			return false;
 		}
 
-		GameObject gameObject = getWorldGameObject(startX, startY);
+		int start = worldState.index(startX, startY);
+		int end = worldState.index(endX, endY);
 		// there is no GameObject at the start
-		if (gameObject == null) {
+		if (worldState.isEmpty(start)) {
 			return false;
 		}
 		// the destination is blocked
-		if (getWorldGameObject(endX, endY) != null) {
+		if (!worldState.isEmpty(end)) {
 			return false;
 		}
 		// the destination is not within radius
-		if (!gameObject.canMoveTo(endX, endY)) {
+		if (!worldState.getType(start).isWithinRadius(Action.ActionType.MOVE,
+				worldState.getDiff(startX, startY, endX, endY))) {
 			return false;
 		}
 		// the gameObject has been used already
-		if (gameObject.wasUsed(Action.ActionType.MOVE)) {
+		if (isUsed(start, Action.ActionType.MOVE)) {
 			return false;
 		}
 		return true;
@@ -296,14 +745,20 @@ public class GameWorld {
 		if (!canMove(startX, startY, endX, endY)) {
 			return false;
 		}
+		int start = worldState.index(startX, startY);
+		int end = worldState.index(endX, endY);
+		if (recording) {
+			undoJournal.push(start);
+			undoJournal.push(end);
+			undoJournal.push(UndoJournal.OP_MOVE);
+		}
+		worldState.move(start, end);
+		use(end, Action.ActionType.MOVE);
 		worldGameObjects[endY][endX] = worldGameObjects[startY][startX];
 		worldGameObjects[startY][startX] = null;
-		getWorldGameObject(endX, endY).setPositionX(endX);
-		getWorldGameObject(endX, endY).setPositionY(endY);
-		getWorldGameObject(endX, endY).use(Action.ActionType.MOVE);
+		worldGameObjects[endY][endX].relocate(end, endX, endY);
 
-		playerActions.get(getActivePlayer()).add(new Action(Action.ActionType.MOVE,
-				startX, startY, endX, endY));
+		logAction(new Action(Action.ActionType.MOVE, startX, startY, endX, endY));
 		return true;
 	}
 
@@ -324,17 +779,19 @@ public class GameWorld {
 			return false;
 		}
 
-		GameObject gameObject = getWorldGameObject(startX, startY);
+		int start = worldState.index(startX, startY);
+		int end = worldState.index(endX, endY);
 		// there is no GameObject at the start
-		if (gameObject == null) {
+		if (worldState.isEmpty(start)) {
 			return false;
 		}
 		// the destination is blocked
-		if (getWorldGameObject(endX, endY) != null) {
+		if (!worldState.isEmpty(end)) {
 			return false;
 		}
+		GameObjectType startType = worldState.getType(start);
 		// the destination is not within radius
-		if (!gameObject.canProduceTo(endX, endY)) {
+		if (!startType.isWithinRadius(Action.ActionType.PRODUCE, worldState.getDiff(startX, startY, endX, endY))) {
 			return false;
 		}
 		// target mapObject does not allow this gameObjectType
@@ -342,15 +799,15 @@ public class GameWorld {
 			return false;
 		}
 		// the active GameObjectType can't produce the desired GameObjectType
-		if (!gameObject.getGameObjectType().getCanProduceList().contains(gameObjectType)) {
+		if (!startType.canProduce(gameObjectType)) {
 			return false;
 		}
 		// the new GameObject is too expensive
-		if (getActivePlayer().getMoney() < gameObjectType.getValue()) {
+		if (getMoney(getActivePlayer()) < gameObjectType.getValue()) {
 			return false;
 		}
 		// the gameObject has been used already
-		if (gameObject.wasUsed(Action.ActionType.PRODUCE)) {
+		if (isUsed(start, Action.ActionType.PRODUCE)) {
 			return false;
 		}
 		return true;
@@ -369,19 +826,12 @@ public class GameWorld {
 		if (!canProduce(startX, startY, endX, endY, gameObjectType)) {
 			return false;
 		}
-		GameObject newGameObject = new GameObject(gameObjectType, getActivePlayer());
-		newGameObject.setPositionX(endX);
-		newGameObject.setPositionY(endY);
-		worldGameObjects[endY][endX] = newGameObject;
-		gameObjects.add(newGameObject);
-		getActivePlayer().addMoney(-gameObjectType.getValue());
-		getWorldGameObject(startX, startY).use(Action.ActionType.PRODUCE);
-		for (Action.ActionType a : Action.ActionType.values()) {
-			newGameObject.use(a);//not able to do anything after being built
-		}
+		//not able to do anything after being built
+		addGameObject(endX, endY, gameObjectType, worldState.registerPlayer(getActivePlayer()), WorldState.ALL_ACTIONS);
+		addMoney(getActivePlayer(), -gameObjectType.getValue());
+		use(worldState.index(startX, startY), Action.ActionType.PRODUCE);
 
-		playerActions.get(getActivePlayer()).add(new Action(Action.ActionType.PRODUCE,
-				startX, startY, endX, endY, gameObjectType));
+		logAction(new Action(Action.ActionType.PRODUCE, startX, startY, endX, endY, gameObjectType));
 		return true;
 	}
 
@@ -402,21 +852,28 @@ public class GameWorld {
 			return false;
 		}
 
-		GameObject gameObject = getWorldGameObject(startX, startY);
+		int start = worldState.index(startX, startY);
+		int end = worldState.index(endX, endY);
 		// there is no GameObject at the start
-		if (gameObject == null) {
+		if (worldState.isEmpty(start)) {
 			return false;
 		}
 		// there is no GameObject at the destination
-		if (getWorldGameObject(endX, endY) == null) {
+		if (worldState.isEmpty(end)) {
 			return false;
 		}
+		GameObjectType startType = worldState.getType(start);
 		// the destination is not within radius
-		if (!gameObject.canFight(getWorldGameObject(endX, endY))) {
+		if (!startType.isCanFight()
+				|| !startType.isWithinRadius(Action.ActionType.FIGHT, worldState.getDiff(startX, startY, endX, endY))) {
+			return false;
+		}
+		// the destination belongs to the same player
+		if (worldState.getOwner(start) == worldState.getOwner(end)) {
 			return false;
 		}
 		// the gameObject has been used already
-		if (gameObject.wasUsed(Action.ActionType.FIGHT)) {
+		if (isUsed(start, Action.ActionType.FIGHT)) {
 			return false;
 		}
 		return true;
@@ -435,19 +892,26 @@ public class GameWorld {
 		if (!canFight(startX, startY, endX, endY)) {
 			return 0;
 		}
-		int damage = getWorldGameObject(startX, startY).fight(getWorldGameObject(endX, endY));
-		if (getWorldGameObject(endX, endY).getHp() <= 0) {
-			getActivePlayer().addMoney(getWorldGameObject(endX, endY).getGameObjectType().getValueOnDestruction());
-			Player otherPlayer = getWorldGameObject(endX, endY).getPlayer();
+		int start = worldState.index(startX, startY);
+		int end = worldState.index(endX, endY);
+		int damage = -worldState.getType(start).getDamage(worldState.getType(end));
+		if (recording) {
+			undoJournal.push(end);
+			undoJournal.push(worldState.getHp(end));
+			undoJournal.push(UndoJournal.OP_HP);
+		}
+		worldState.setHp(end, worldState.getHp(end) + damage);
+		if (worldState.getHp(end) <= 0) {
+			addMoney(getActivePlayer(), worldState.getType(end).getValueOnDestruction());
+			Player otherPlayer = worldState.getPlayer(end);
 			removeGameObject(endX, endY);
 			if (!isPlayerStillAlive(otherPlayer)) {
 				conquerPlayer(getActivePlayer(), otherPlayer);
 			}
 		}
-		getWorldGameObject(startX, startY).use(Action.ActionType.FIGHT);
+		use(start, Action.ActionType.FIGHT);
 
-		playerActions.get(getActivePlayer()).add(new Action(Action.ActionType.FIGHT,
-				startX, startY, endX, endY));
+		logAction(new Action(Action.ActionType.FIGHT, startX, startY, endX, endY));
 		return damage;
 	}
 
@@ -458,12 +922,19 @@ public class GameWorld {
 	 * @param loser     the loser
 	 */
 	private void conquerPlayer(Player conqueror, Player loser) {
-		conqueror.addMoney(loser.getMoney());
-		for (GameObject gameObject : gameObjects) {
-			if (gameObject.getPlayer() == loser) {
-				gameObject.setPlayer(conqueror);
+		addMoney(conqueror, getMoney(loser));
+		int loserSlot = worldState.getPlayerSlot(loser);
+		if (recording) {
+			for (int i = 0; i < worldState.getLiveCount(); i++) {
+				int cell = worldState.getLiveCell(i);
+				if (worldState.getOwner(cell) == loserSlot) {
+					undoJournal.push(cell);
+					undoJournal.push(loserSlot);
+					undoJournal.push(UndoJournal.OP_OWNER);
+				}
 			}
 		}
+		worldState.transferOwner(loserSlot, worldState.registerPlayer(conqueror));
 	}
 
 	/**
@@ -494,12 +965,54 @@ public class GameWorld {
 	 * @param reader the XmlReader.Element to read from
 	 */
 	public void load(XmlReader.Element reader) {
+		undoJournal.clear();
+		recording = false;
+		worldState = new WorldState(mapSizeX, mapSizeY, rules);
 		worldGameObjects = new GameObject[mapSizeY][mapSizeX];
 		XmlReader.Element gameObjects = reader.getChildByName("GameObjects");
 		for (XmlReader.Element gameObjectXML : gameObjects.getChildrenByName("GameObject")) {
 			GameObject gameObject = new GameObject(gameObjectXML);
+			gameObject.attach(worldState, worldState.index(gameObject.getPositionX(), gameObject.getPositionY()));
 			worldGameObjects[gameObject.getPositionY()][gameObject.getPositionX()] = gameObject;
-			this.gameObjects.add(gameObject);
+		}
+		if (activePlayer != null) {
+			worldState.setActiveSlot(worldState.registerPlayer(activePlayer));
+		}
+	}
+
+	/**
+	 * Read only view on all GameObjects of the world state
+	 */
+	private class GameObjectCollection extends AbstractCollection<GameObject> {
+		@Override
+		public Iterator<GameObject> iterator() {
+			return new Iterator<GameObject>() {
+				private int i = 0;
+
+				@Override
+				public boolean hasNext() {
+					return i < worldState.getLiveCount();
+				}
+
+				@Override
+				public GameObject next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					int cell = worldState.getLiveCell(i++);
+					return worldGameObjects[cell / mapSizeX][cell % mapSizeX];
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return worldState.getLiveCount();
 		}
 	}
 }
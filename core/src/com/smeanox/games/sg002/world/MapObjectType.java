@@ -2,6 +2,7 @@ package com.smeanox.games.sg002.world;
 
 import com.badlogic.gdx.graphics.Texture;
 
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
@@ -21,6 +22,8 @@ public class MapObjectType {
 	private String textureName;
 
 	private Set<GameObjectType> allowedGameObjectTypes;
+	// ordinals of the allowed GameObjectTypes
+	private BitSet allowedOrdinals;
 
 	public final String id;
 
@@ -35,6 +38,12 @@ public class MapObjectType {
 		this.id = id;
 		this.textureName = textureName;
 		this.allowedGameObjectTypes = allowedGameObjectTypes;
+		allowedOrdinals = new BitSet(GameObjectType.getGameObjectTypeCount());
+		for (GameObjectType gameObjectType : allowedGameObjectTypes) {
+			if (gameObjectType != null) {
+				allowedOrdinals.set(gameObjectType.getOrdinal());
+			}
+		}
 
 		idmap.put(id, this);
 	}
@@ -58,7 +67,7 @@ public class MapObjectType {
 	 * @return true if it is allowed
 	 */
 	public boolean isGameObjectTypeAllowed(GameObjectType gameObjectType) {
-		return allowedGameObjectTypes.contains(gameObjectType);
+		return gameObjectType != null && allowedOrdinals.get(gameObjectType.getOrdinal());
 	}
 
 	/**
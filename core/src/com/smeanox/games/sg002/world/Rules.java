@@ -0,0 +1,73 @@
+package com.smeanox.games.sg002.world;
+
+/**
+ * Immutable game settings of a single game, read from its scenario
+ *
+ * @author Benjamin Schmid
+ */
+public class Rules {
+	/**
+	 * Rules with the default settings, used for GameObjects that are not part of a game and for replays of
+	 * game logs that do not contain the rules
+	 */
+	public static final Rules DEFAULT = new Rules(314159265358979L, true, true, 2);
+
+	private final long seed;
+	private final boolean walkDiagonal;
+	private final boolean multipleActionsPerObject;
+	private final int startGameObjectMinDistance;
+
+	/**
+	 * Create a new instance
+	 *
+	 * @param seed                       the seed used for randomness
+	 * @param walkDiagonal               whether the distance is max(diffX, diffY) (true) or diffX + diffY (false)
+	 * @param multipleActionsPerObject   whether an object can perform one action of each type per round
+	 * @param startGameObjectMinDistance the minimal distance between two start GameObjects
+	 */
+	public Rules(long seed, boolean walkDiagonal, boolean multipleActionsPerObject, int startGameObjectMinDistance) {
+		this.seed = seed;
+		this.walkDiagonal = walkDiagonal;
+		this.multipleActionsPerObject = multipleActionsPerObject;
+		this.startGameObjectMinDistance = startGameObjectMinDistance;
+	}
+
+	/**
+	 * Create a new instance with the settings of the given scenario
+	 *
+	 * @param scenario the scenario
+	 */
+	public Rules(Scenario scenario) {
+		this(scenario.getSeed(), scenario.isWalkDiagonal(), scenario.isMultipleActionsPerObject(),
+				scenario.getStartGameObjectMinDistance());
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public boolean isWalkDiagonal() {
+		return walkDiagonal;
+	}
+
+	public boolean isMultipleActionsPerObject() {
+		return multipleActionsPerObject;
+	}
+
+	public int getStartGameObjectMinDistance() {
+		return startGameObjectMinDistance;
+	}
+
+	/**
+	 * Return the distance between the two given fields
+	 *
+	 * @param startX start coordinates
+	 * @param startY start coordinates
+	 * @param endX   end coordinates
+	 * @param endY   end coordinates
+	 * @return the distance
+	 */
+	public int getDistance(int startX, int startY, int endX, int endY) {
+		return WorldState.getDistance(startX - endX, startY - endY, walkDiagonal);
+	}
+}
@@ -3,6 +3,8 @@ package com.smeanox.games.sg002.world;
 import com.badlogic.gdx.math.MathUtils;
 
 import com.smeanox.games.sg002.data.Point;
+import com.smeanox.games.sg002.util.Consts;
+
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -32,6 +34,8 @@ public class Scenario {
 	private long seed;
 	private Point[] startPos;
 	private Point[] goldPos;
+	private int timeBudget;
+	private int timeIncrement;
 
 	public Scenario(String id,
 					String name,
@@ -55,6 +59,8 @@ public class Scenario {
 		this.maxGold = maxGold;
 		this.multipleActionsPerObject = multipleActionsPerObject;
 		this.seed = seed;
+		this.timeBudget = Consts.EXTERNAL_TIME_BUDGET;
+		this.timeIncrement = Consts.EXTERNAL_TIME_INCREMENT;
 		MathUtils.random.setSeed(seed);
 
 		idToScenario.put(id, this);
@@ -215,6 +221,35 @@ public class Scenario {
 		return seed;
 	}
 
+	/**
+	 * The time in ms an external program has in total to output its moves in a game
+	 *
+	 * @return time in ms
+	 */
+	public int getTimeBudget() {
+		return timeBudget;
+	}
+
+	/**
+	 * The time in ms an external program gets added to its remaining time after each move
+	 *
+	 * @return time in ms
+	 */
+	public int getTimeIncrement() {
+		return timeIncrement;
+	}
+
+	/**
+	 * Set the time control for external programs, by default the values from {@link Consts} are used
+	 *
+	 * @param timeBudget    the total time in ms
+	 * @param timeIncrement the time in ms added after each move
+	 */
+	public void setTimeControl(int timeBudget, int timeIncrement) {
+		this.timeBudget = timeBudget;
+		this.timeIncrement = timeIncrement;
+	}
+
 	/**
 	 * Get starting position for each player
 	 *
@@ -0,0 +1,87 @@
+package com.smeanox.games.sg002.world;
+
+/**
+ * Stack of primitive entries that record the state before each change of a {@link GameWorld}.
+ * <br>
+ * An entry consists of its operands followed by its opcode, so the journal can be read backwards.
+ * GameObjects that were removed from the map are kept on a separate stack so their views can be
+ * restored as well.
+ *
+ * @author Benjamin Schmid
+ */
+class UndoJournal {
+	static final int OP_MOVE = 0;
+	static final int OP_USED = 1;
+	static final int OP_HP = 2;
+	static final int OP_PLACE = 3;
+	static final int OP_REMOVE = 4;
+	static final int OP_OWNER = 5;
+	static final int OP_MONEY = 6;
+	static final int OP_ACTION = 7;
+
+	private int[] entries;
+	private int size;
+
+	private GameObject[] removed;
+	private int removedSize;
+
+	UndoJournal() {
+		entries = new int[256];
+		size = 0;
+		removed = new GameObject[16];
+		removedSize = 0;
+	}
+
+	/**
+	 * Return the current position in the journal, everything recorded afterwards can be undone
+	 * by rolling back to this position
+	 *
+	 * @return the position
+	 */
+	int mark() {
+		return size;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Discard all entries
+	 */
+	void clear() {
+		size = 0;
+		for (int i = 0; i < removedSize; i++) {
+			removed[i] = null;
+		}
+		removedSize = 0;
+	}
+
+	void push(int value) {
+		if (size == entries.length) {
+			int[] newEntries = new int[entries.length * 2];
+			System.arraycopy(entries, 0, newEntries, 0, size);
+			entries = newEntries;
+		}
+		entries[size++] = value;
+	}
+
+	int pop() {
+		return entries[--size];
+	}
+
+	void pushRemoved(GameObject gameObject) {
+		if (removedSize == removed.length) {
+			GameObject[] newRemoved = new GameObject[removed.length * 2];
+			System.arraycopy(removed, 0, newRemoved, 0, removedSize);
+			removed = newRemoved;
+		}
+		removed[removedSize++] = gameObject;
+	}
+
+	GameObject popRemoved() {
+		GameObject gameObject = removed[--removedSize];
+		removed[removedSize] = null;
+		return gameObject;
+	}
+}
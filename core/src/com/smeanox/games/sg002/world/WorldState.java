@@ -0,0 +1,756 @@
+package com.smeanox.games.sg002.world;
+
+import com.smeanox.games.sg002.player.Player;
+
+/**
+ * Stores the state of all GameObjects in flat arrays indexed by cell (y * mapSizeX + x).
+ * <br>
+ * Owners are stored as slots into a per-state table of players, so a GameObject never holds a
+ * reference to its player. For each slot the number of objects per type, the income per round and
+ * whether the player is still alive are kept up to date on every change.
+ * <br>
+ * The used actions of a cell are only valid if they were set in the current epoch, so all used actions
+ * can be reset by starting a new epoch. The cells whose used actions were written in the current epoch
+ * are listed, so only their hash has to be updated when the epoch changes.
+ * <br>
+ * Types are stored with an offset of one, so a freshly allocated array describes an empty map and
+ * a copy only has to touch the occupied cells.
+ * <br>
+ * A 64-bit Zobrist hash of the cells, the money of all players and the active player is updated on
+ * every change. The keys are derived from the seed of the rules by a mixing function, so the hash is
+ * the same in every run with the same seed.
+ *
+ * @author Benjamin Schmid
+ */
+class WorldState {
+	/**
+	 * Type ordinal of an empty cell
+	 */
+	static final int EMPTY = -1;
+
+	/**
+	 * Bitmask with the bits of all ActionTypes set
+	 */
+	static final int ALL_ACTIONS = (1 << Action.ActionType.values().length) - 1;
+
+	/**
+	 * Number of hp values that are hashed to the same key
+	 */
+	static final int HP_BUCKET_SIZE = 1;
+
+	private static final long MONEY_SALT = 0x6d6f6e6579L;
+	private static final long ACTIVE_SALT = 0x616374697665L;
+	private static final long CHECKSUM_SALT = 0x636865636b73756dL;
+
+	private final int mapSizeX;
+	private final int mapSizeY;
+	private final Rules rules;
+
+	// ordinal + 1 of the type, 0 for an empty cell
+	private final int[] type;
+	private final int[] owner;
+	private final int[] hp;
+	private final int[] usedActions;
+	private final int[] usedEpoch;
+	private int epoch;
+
+	// cells whose used actions were written in the current epoch, usedListed is epoch + 1 for listed cells
+	private final int[] usedCells;
+	private final int[] usedListed;
+	private int usedCellCount;
+
+	// dense list of all occupied cells, liveIndex maps an occupied cell to its index in liveCells
+	private final int[] liveCells;
+	private final int[] liveIndex;
+	private int liveCount;
+
+	private Player[] players;
+	private int playerCount;
+
+	// aggregates per player slot
+	private int[][] typeCounts;
+	private int[] objectCounts;
+	private int[] incomes;
+	private int[] money;
+	private int livingPlayerCount;
+
+	private final long hashSeed;
+	private long hash;
+	private int activeSlot;
+
+	/**
+	 * Create a new, empty instance
+	 *
+	 * @param mapSizeX size of the map
+	 * @param mapSizeY size of the map
+	 */
+	WorldState(int mapSizeX, int mapSizeY) {
+		this(mapSizeX, mapSizeY, Rules.DEFAULT);
+	}
+
+	/**
+	 * Create a new, empty instance
+	 *
+	 * @param mapSizeX size of the map
+	 * @param mapSizeY size of the map
+	 * @param rules    the rules of the game
+	 */
+	WorldState(int mapSizeX, int mapSizeY, Rules rules) {
+		this.mapSizeX = mapSizeX;
+		this.mapSizeY = mapSizeY;
+		this.rules = rules;
+
+		int cells = mapSizeX * mapSizeY;
+		type = new int[cells];
+		owner = new int[cells];
+		hp = new int[cells];
+		usedActions = new int[cells];
+		usedEpoch = new int[cells];
+		epoch = 0;
+		usedCells = new int[cells];
+		usedListed = new int[cells];
+		usedCellCount = 0;
+		liveCells = new int[cells];
+		liveIndex = new int[cells];
+		liveCount = 0;
+
+		players = new Player[8];
+		playerCount = 0;
+		typeCounts = new int[players.length][];
+		objectCounts = new int[players.length];
+		incomes = new int[players.length];
+		money = new int[players.length];
+		livingPlayerCount = 0;
+
+		hashSeed = rules.getSeed();
+		hash = 0;
+		activeSlot = -1;
+	}
+
+	/**
+	 * Create a copy of the given instance. Only the occupied cells are copied
+	 *
+	 * @param original the instance to copy
+	 */
+	WorldState(WorldState original) {
+		mapSizeX = original.mapSizeX;
+		mapSizeY = original.mapSizeY;
+		rules = original.rules;
+
+		int cells = mapSizeX * mapSizeY;
+		type = new int[cells];
+		owner = new int[cells];
+		hp = new int[cells];
+		usedActions = new int[cells];
+		usedEpoch = new int[cells];
+		epoch = original.epoch;
+		usedCells = new int[cells];
+		usedListed = new int[cells];
+		usedCellCount = original.usedCellCount;
+		System.arraycopy(original.usedCells, 0, usedCells, 0, usedCellCount);
+		for (int i = 0; i < usedCellCount; i++) {
+			usedListed[usedCells[i]] = epoch + 1;
+		}
+		liveCells = new int[cells];
+		liveIndex = new int[cells];
+		liveCount = original.liveCount;
+		System.arraycopy(original.liveCells, 0, liveCells, 0, liveCount);
+		for (int i = 0; i < liveCount; i++) {
+			int cell = liveCells[i];
+			type[cell] = original.type[cell];
+			owner[cell] = original.owner[cell];
+			hp[cell] = original.hp[cell];
+			usedActions[cell] = original.usedActions[cell];
+			usedEpoch[cell] = original.usedEpoch[cell];
+			liveIndex[cell] = i;
+		}
+
+		players = original.players.clone();
+		playerCount = original.playerCount;
+		typeCounts = new int[players.length][];
+		for (int i = 0; i < playerCount; i++) {
+			typeCounts[i] = original.typeCounts[i].clone();
+		}
+		objectCounts = original.objectCounts.clone();
+		incomes = original.incomes.clone();
+		money = original.money.clone();
+		livingPlayerCount = original.livingPlayerCount;
+
+		hashSeed = original.hashSeed;
+		hash = original.hash;
+		activeSlot = original.activeSlot;
+	}
+
+	/**
+	 * Finalizer of SplitMix64, spreads the bits of the input over the whole output
+	 *
+	 * @param z the value to mix
+	 * @return the mixed value
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Return the key of the content of the given cell
+	 *
+	 * @param cell the cell
+	 * @return the key or 0 if the cell is empty
+	 */
+	private long cellKey(int cell) {
+		if (type[cell] == 0) {
+			return 0;
+		}
+		long content = type[cell] | (owner[cell] & 0xfff) << 8 | (getUsedActions(cell) & 0xfff) << 20
+				| (long) (hp[cell] / HP_BUCKET_SIZE) << 32;
+		return mix(mix(hashSeed + cell) ^ content);
+	}
+
+	private long moneyKey(int slot) {
+		return mix(mix(hashSeed ^ MONEY_SALT + slot) ^ money[slot]);
+	}
+
+	private long activeKey(int slot) {
+		if (slot < 0) {
+			return 0;
+		}
+		return mix(hashSeed ^ ACTIVE_SALT + slot);
+	}
+
+	/**
+	 * Return the Zobrist hash of the state
+	 *
+	 * @return the hash
+	 */
+	long getHash() {
+		return hash;
+	}
+
+	/**
+	 * Calculate the hash from scratch, this has to be equal to {@link #getHash()}
+	 *
+	 * @return the hash
+	 */
+	long computeHash() {
+		long result = activeKey(activeSlot);
+		for (int i = 0; i < liveCount; i++) {
+			result ^= cellKey(liveCells[i]);
+		}
+		for (int i = 0; i < playerCount; i++) {
+			result ^= moneyKey(i);
+		}
+		return result;
+	}
+
+	/**
+	 * Calculate a checksum of the GameObjects (type, owner and hp) and the money of all players from
+	 * scratch. Unlike the hash it does not depend on the seed and uses the ids of the players instead of
+	 * their slots, so it can be compared between a game and its replay.
+	 *
+	 * @return the checksum
+	 */
+	long computeChecksum() {
+		long result = 0;
+		for (int i = 0; i < liveCount; i++) {
+			int cell = liveCells[i];
+			long content = type[cell] | (long) (players[owner[cell]].getId() & 0xffff) << 8 | (long) hp[cell] << 24;
+			result += mix(mix(CHECKSUM_SALT + cell) ^ content);
+		}
+		for (int i = 0; i < playerCount; i++) {
+			result += mix(mix(CHECKSUM_SALT ^ MONEY_SALT + players[i].getId()) ^ money[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Set the player whose round it is
+	 *
+	 * @param slot slot of the player
+	 */
+	void setActiveSlot(int slot) {
+		hash ^= activeKey(activeSlot) ^ activeKey(slot);
+		activeSlot = slot;
+	}
+
+	/**
+	 * Return the bit used for the given action in the usedActions mask
+	 *
+	 * @param action the action
+	 * @return the bit
+	 */
+	static int actionBit(Action.ActionType action) {
+		return 1 << action.ordinal();
+	}
+
+	/**
+	 * Return the distance between the two given fields
+	 *
+	 * @param startX start coordinates
+	 * @param startY start coordinates
+	 * @param endX   end coordinates
+	 * @param endY   end coordinates
+	 * @return the distance
+	 */
+	int getDiff(int startX, int startY, int endX, int endY) {
+		return getDistance(startX - endX, startY - endY, rules.isWalkDiagonal());
+	}
+
+	/**
+	 * Return the length of the given offset
+	 *
+	 * @param diffX        offset
+	 * @param diffY        offset
+	 * @param walkDiagonal whether diagonal steps are allowed (chebyshev instead of manhattan distance)
+	 * @return the distance
+	 */
+	static int getDistance(int diffX, int diffY, boolean walkDiagonal) {
+		diffX = Math.abs(diffX);
+		diffY = Math.abs(diffY);
+		if (walkDiagonal) {
+			return Math.max(diffX, diffY);
+		} else {
+			return diffX + diffY;
+		}
+	}
+
+	Rules getRules() {
+		return rules;
+	}
+
+	int getMapSizeX() {
+		return mapSizeX;
+	}
+
+	int getMapSizeY() {
+		return mapSizeY;
+	}
+
+	/**
+	 * Return the cell of the given coordinates
+	 *
+	 * @param x coordinates
+	 * @param y coordinates
+	 * @return the cell
+	 */
+	int index(int x, int y) {
+		return y * mapSizeX + x;
+	}
+
+	boolean isEmpty(int cell) {
+		return type[cell] == 0;
+	}
+
+	/**
+	 * Return the ordinal of the type of the GameObject on the given cell
+	 *
+	 * @param cell the cell
+	 * @return the ordinal or {@link #EMPTY}
+	 */
+	int getTypeOrdinal(int cell) {
+		return type[cell] - 1;
+	}
+
+	GameObjectType getType(int cell) {
+		return GameObjectType.getGameObjectTypeByOrdinal(type[cell] - 1);
+	}
+
+	int getOwner(int cell) {
+		return owner[cell];
+	}
+
+	void setOwner(int cell, int owner) {
+		if (this.owner[cell] == owner) {
+			return;
+		}
+		hash ^= cellKey(cell);
+		updateAggregates(this.owner[cell], type[cell] - 1, -1);
+		this.owner[cell] = owner;
+		updateAggregates(owner, type[cell] - 1, 1);
+		hash ^= cellKey(cell);
+	}
+
+	Player getPlayer(int cell) {
+		return players[owner[cell]];
+	}
+
+	int getHp(int cell) {
+		return hp[cell];
+	}
+
+	void setHp(int cell, int hp) {
+		hash ^= cellKey(cell);
+		this.hp[cell] = hp;
+		hash ^= cellKey(cell);
+	}
+
+	/**
+	 * Return the mask of the actions the object on the given cell used in the current epoch
+	 *
+	 * @param cell the cell
+	 * @return the mask of used actions
+	 */
+	int getUsedActions(int cell) {
+		if (usedEpoch[cell] != epoch) {
+			return 0;
+		}
+		return usedActions[cell];
+	}
+
+	void setUsedActions(int cell, int usedActions) {
+		hash ^= cellKey(cell);
+		this.usedActions[cell] = usedActions;
+		usedEpoch[cell] = epoch;
+		listUsed(cell);
+		hash ^= cellKey(cell);
+	}
+
+	/**
+	 * Return the stored mask of used actions, regardless of the epoch it was set in
+	 *
+	 * @param cell the cell
+	 * @return the raw mask
+	 */
+	int getRawUsedActions(int cell) {
+		return usedActions[cell];
+	}
+
+	int getUsedEpoch(int cell) {
+		return usedEpoch[cell];
+	}
+
+	/**
+	 * Set the mask of used actions together with the epoch it belongs to
+	 *
+	 * @param cell        the cell
+	 * @param usedActions the raw mask
+	 * @param usedEpoch   the epoch
+	 */
+	void setRawUsedActions(int cell, int usedActions, int usedEpoch) {
+		hash ^= cellKey(cell);
+		this.usedActions[cell] = usedActions;
+		this.usedEpoch[cell] = usedEpoch;
+		listUsed(cell);
+		hash ^= cellKey(cell);
+	}
+
+	/**
+	 * Add the given cell to the cells whose used actions were written in the current epoch
+	 *
+	 * @param cell the cell
+	 */
+	private void listUsed(int cell) {
+		if (usedListed[cell] != epoch + 1) {
+			usedListed[cell] = epoch + 1;
+			usedCells[usedCellCount++] = cell;
+		}
+	}
+
+	/**
+	 * Reenable all actions of all objects by starting a new epoch
+	 * <br>
+	 * Only the hash of the cells whose used actions were written in the last epoch has to be updated
+	 */
+	void resetUsedActions() {
+		for (int i = 0; i < usedCellCount; i++) {
+			int cell = usedCells[i];
+			if (usedEpoch[cell] == epoch && usedActions[cell] != 0) {
+				hash ^= cellKey(cell);
+			}
+		}
+		epoch++;
+		for (int i = 0; i < usedCellCount; i++) {
+			int cell = usedCells[i];
+			if (usedEpoch[cell] == epoch - 1 && usedActions[cell] != 0) {
+				hash ^= cellKey(cell);
+			}
+		}
+		usedCellCount = 0;
+	}
+
+	/**
+	 * Return the number of occupied cells
+	 *
+	 * @return the number of GameObjects
+	 */
+	int getLiveCount() {
+		return liveCount;
+	}
+
+	/**
+	 * Return the i-th occupied cell. The order only changes if a GameObject is removed
+	 *
+	 * @param i index in the range [0, liveCount)
+	 * @return the cell
+	 */
+	int getLiveCell(int i) {
+		return liveCells[i];
+	}
+
+	/**
+	 * Put a new GameObject on the given cell
+	 *
+	 * @param cell        the cell, has to be empty
+	 * @param typeOrdinal ordinal of the GameObjectType
+	 * @param owner       slot of the owning player
+	 * @param hp          the hp
+	 * @param usedActions mask of the used actions
+	 */
+	void place(int cell, int typeOrdinal, int owner, int hp, int usedActions) {
+		type[cell] = typeOrdinal + 1;
+		this.owner[cell] = owner;
+		this.hp[cell] = hp;
+		this.usedActions[cell] = usedActions;
+		usedEpoch[cell] = epoch;
+		listUsed(cell);
+		hash ^= cellKey(cell);
+		liveIndex[cell] = liveCount;
+		liveCells[liveCount] = cell;
+		liveCount++;
+		updateAggregates(owner, typeOrdinal, 1);
+	}
+
+	/**
+	 * Return the index of the given cell in the list of occupied cells
+	 *
+	 * @param cell the cell
+	 * @return the index, only valid if the cell is occupied
+	 */
+	int getLiveIndex(int cell) {
+		return liveIndex[cell];
+	}
+
+	/**
+	 * Undo {@link #remove(int)}: put a GameObject back on the cell at its former index in the list of
+	 * occupied cells
+	 *
+	 * @param cell        the empty cell
+	 * @param typeOrdinal ordinal of the GameObjectType
+	 * @param owner       slot of the owning player
+	 * @param hp          the hp
+	 * @param usedActions raw mask of the used actions
+	 * @param usedEpoch   epoch of the mask
+	 * @param index       the index the cell had in the list of occupied cells
+	 */
+	void restore(int cell, int typeOrdinal, int owner, int hp, int usedActions, int usedEpoch, int index) {
+		type[cell] = typeOrdinal + 1;
+		this.owner[cell] = owner;
+		this.hp[cell] = hp;
+		this.usedActions[cell] = usedActions;
+		this.usedEpoch[cell] = usedEpoch;
+		listUsed(cell);
+		hash ^= cellKey(cell);
+		int moved = liveCells[index];
+		liveCells[liveCount] = moved;
+		liveIndex[moved] = liveCount;
+		liveCells[index] = cell;
+		liveIndex[cell] = index;
+		liveCount++;
+		updateAggregates(owner, typeOrdinal, 1);
+	}
+
+	/**
+	 * Remove the GameObject from the given cell
+	 *
+	 * @param cell the cell
+	 */
+	void remove(int cell) {
+		if (type[cell] == 0) {
+			return;
+		}
+		int i = liveIndex[cell];
+		liveCount--;
+		int last = liveCells[liveCount];
+		liveCells[i] = last;
+		liveIndex[last] = i;
+		updateAggregates(owner[cell], type[cell] - 1, -1);
+		hash ^= cellKey(cell);
+		type[cell] = 0;
+	}
+
+	/**
+	 * Move the GameObject from one cell to another
+	 *
+	 * @param from the occupied cell
+	 * @param to   the empty cell
+	 */
+	void move(int from, int to) {
+		hash ^= cellKey(from);
+		type[to] = type[from];
+		owner[to] = owner[from];
+		hp[to] = hp[from];
+		usedActions[to] = usedActions[from];
+		usedEpoch[to] = usedEpoch[from];
+		listUsed(to);
+		type[from] = 0;
+		hash ^= cellKey(to);
+
+		int i = liveIndex[from];
+		liveCells[i] = to;
+		liveIndex[to] = i;
+	}
+
+	/**
+	 * Give all GameObjects of one player to another player
+	 *
+	 * @param from slot of the player that loses its objects
+	 * @param to   slot of the player that receives the objects
+	 */
+	void transferOwner(int from, int to) {
+		if (from == to || objectCounts[from] == 0) {
+			return;
+		}
+		for (int i = 0; i < liveCount; i++) {
+			if (owner[liveCells[i]] == from) {
+				hash ^= cellKey(liveCells[i]);
+				owner[liveCells[i]] = to;
+				hash ^= cellKey(liveCells[i]);
+			}
+		}
+		if (objectCounts[to] == 0) {
+			livingPlayerCount++;
+		}
+		for (int i = 0; i < typeCounts[from].length; i++) {
+			typeCounts[to][i] += typeCounts[from][i];
+			typeCounts[from][i] = 0;
+		}
+		objectCounts[to] += objectCounts[from];
+		incomes[to] += incomes[from];
+		objectCounts[from] = 0;
+		incomes[from] = 0;
+		livingPlayerCount--;
+	}
+
+	/**
+	 * Update the aggregates of a player after an object was added or removed
+	 *
+	 * @param slot        slot of the player
+	 * @param typeOrdinal ordinal of the type of the object
+	 * @param delta       1 if an object was added, -1 if it was removed
+	 */
+	private void updateAggregates(int slot, int typeOrdinal, int delta) {
+		boolean wasAlive = objectCounts[slot] > 0;
+		typeCounts[slot][typeOrdinal] += delta;
+		objectCounts[slot] += delta;
+		incomes[slot] += delta * GameObjectType.getGameObjectTypeByOrdinal(typeOrdinal).getValuePerRound();
+		if (wasAlive != objectCounts[slot] > 0) {
+			livingPlayerCount += wasAlive ? -1 : 1;
+		}
+	}
+
+	/**
+	 * Return the number of objects of the given player
+	 *
+	 * @param slot slot of the player
+	 * @return the number of objects
+	 */
+	int getObjectCount(int slot) {
+		return objectCounts[slot];
+	}
+
+	/**
+	 * Return the number of objects of the given player and type
+	 *
+	 * @param slot        slot of the player
+	 * @param typeOrdinal ordinal of the type
+	 * @return the number of objects
+	 */
+	int getObjectCount(int slot, int typeOrdinal) {
+		return typeCounts[slot][typeOrdinal];
+	}
+
+	/**
+	 * Return the sum of valuePerRound of all objects of the given player
+	 *
+	 * @param slot slot of the player
+	 * @return the income per round
+	 */
+	int getIncome(int slot) {
+		return incomes[slot];
+	}
+
+	int getMoney(int slot) {
+		return money[slot];
+	}
+
+	void setMoney(int slot, int money) {
+		hash ^= moneyKey(slot);
+		this.money[slot] = money;
+		hash ^= moneyKey(slot);
+	}
+
+	/**
+	 * Return the number of players that own at least one object
+	 *
+	 * @return the number of players
+	 */
+	int getLivingPlayerCount() {
+		return livingPlayerCount;
+	}
+
+	/**
+	 * Return the slot of the given player, registering it if necessary. A new player starts with the
+	 * money it currently has
+	 *
+	 * @param player the player
+	 * @return the slot
+	 */
+	int registerPlayer(Player player) {
+		int slot = getPlayerSlot(player);
+		if (slot >= 0) {
+			return slot;
+		}
+		if (playerCount == players.length) {
+			int newLength = players.length * 2;
+			Player[] newPlayers = new Player[newLength];
+			int[][] newTypeCounts = new int[newLength][];
+			int[] newObjectCounts = new int[newLength];
+			int[] newIncomes = new int[newLength];
+			int[] newMoney = new int[newLength];
+			System.arraycopy(players, 0, newPlayers, 0, playerCount);
+			System.arraycopy(typeCounts, 0, newTypeCounts, 0, playerCount);
+			System.arraycopy(objectCounts, 0, newObjectCounts, 0, playerCount);
+			System.arraycopy(incomes, 0, newIncomes, 0, playerCount);
+			System.arraycopy(money, 0, newMoney, 0, playerCount);
+			players = newPlayers;
+			typeCounts = newTypeCounts;
+			objectCounts = newObjectCounts;
+			incomes = newIncomes;
+			money = newMoney;
+		}
+		players[playerCount] = player;
+		money[playerCount] = player.getMoney();
+		hash ^= moneyKey(playerCount);
+		typeCounts[playerCount] = new int[GameObjectType.getGameObjectTypeCount()];
+		return playerCount++;
+	}
+
+	/**
+	 * Return the slot of the given player
+	 *
+	 * @param player the player
+	 * @return the slot or -1 if the player was never registered
+	 */
+	int getPlayerSlot(Player player) {
+		// players are usually registered in the order of their ids
+		int id = player.getId();
+		if (id >= 0 && id < playerCount && players[id] == player) {
+			return id;
+		}
+		for (int i = 0; i < playerCount; i++) {
+			if (players[i] == player) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	int getPlayerCount() {
+		return playerCount;
+	}
+
+	Player getPlayerBySlot(int slot) {
+		return players[slot];
+	}
+}
@@ -0,0 +1,235 @@
+package com.smeanox.games.sg002.log;
+
+import com.smeanox.games.sg002.data.Point;
+import com.smeanox.games.sg002.world.Rules;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test the binary replay format and the ReplayConverter
+ *
+ * @author Benjamin Schmid
+ */
+public class BinaryReplayTest {
+
+	private static final int ROUNDS = 300;
+	private static final Rules RULES = new Rules(-42, false, false, 7);
+
+	private List<File> files;
+
+	@Before
+	public void setup() {
+		files = new ArrayList<File>();
+	}
+
+	@After
+	public void cleanup() {
+		for (File file : files) {
+			file.delete();
+		}
+	}
+
+	private File createTempFile(String suffix) throws IOException {
+		File file = File.createTempFile("replay", suffix);
+		files.add(file);
+		return file;
+	}
+
+	/**
+	 * Write a binary replay in which round i is played by player i % 2 and has i % 4 actions
+	 */
+	private File writeReplay(int startMoney) throws IOException {
+		File file = createTempFile(".bin");
+		BinaryReplayWriter writer = new BinaryReplayWriter(new FileOutputStream(file));
+		writer.writeHeader(RULES, startMoney, 40, 30, new String[]{"a", "b"}, new Point[]{new Point(3, 4)},
+				new Point[]{new Point(1, 1), new Point(38, 28)});
+		for (int i = 0; i < ROUNDS; i++) {
+			writer.startRound(i % 2);
+			for (int j = 0; j < i % 4; j++) {
+				writer.writeAction(j % 3, i % 40, j, i % 40, j + 1, j % 3 == 2 ? i : -1);
+			}
+		}
+		writer.close();
+		return file;
+	}
+
+	private void assertRound(BinaryReplayReader reader, int round) throws IOException {
+		assertTrue(reader.nextRound());
+		assertEquals(round, reader.getRound());
+		assertEquals(round % 2, reader.getRoundPlayer());
+		for (int j = 0; j < round % 4; j++) {
+			assertTrue(reader.nextAction());
+			assertEquals(j % 3, reader.getActionType());
+			assertEquals(round % 40, reader.getStartX());
+			assertEquals(j, reader.getStartY());
+			assertEquals(round % 40, reader.getEndX());
+			assertEquals(j + 1, reader.getEndY());
+			assertEquals(j % 3 == 2 ? round : -1, reader.getProduceType());
+		}
+		assertFalse(reader.nextAction());
+	}
+
+	@Test
+	public void testVarint() throws IOException {
+		byte[] buffer = new byte[10];
+		assertEquals(1, BinaryReplayWriter.encodeVarint(0, buffer, 0));
+		assertEquals(0, buffer[0]);
+		assertEquals(1, BinaryReplayWriter.encodeVarint(127, buffer, 0));
+		assertEquals(0x7f, buffer[0]);
+		assertEquals(2, BinaryReplayWriter.encodeVarint(128, buffer, 0));
+		assertArrayEquals(new byte[]{(byte) 0x80, 0x01}, new byte[]{buffer[0], buffer[1]});
+		assertEquals(2, BinaryReplayWriter.encodeVarint(16383, buffer, 0));
+		assertArrayEquals(new byte[]{(byte) 0xff, 0x7f}, new byte[]{buffer[0], buffer[1]});
+		assertEquals(3, BinaryReplayWriter.encodeVarint(16384, buffer, 0));
+		assertArrayEquals(new byte[]{(byte) 0x80, (byte) 0x80, 0x01}, new byte[]{buffer[0], buffer[1], buffer[2]});
+		assertEquals(9, BinaryReplayWriter.encodeVarint(Long.MAX_VALUE, buffer, 0));
+
+		for (int value : new int[]{0, 1, 127, 128, 16383, 16384, 2097151, 2097152, Integer.MAX_VALUE}) {
+			BinaryReplayReader reader = new BinaryReplayReader(writeReplay(value));
+			try {
+				assertEquals(value, reader.getStartMoney());
+				assertEquals(40, reader.getMapSizeX());
+				assertEquals(30, reader.getMapSizeY());
+			} finally {
+				reader.close();
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeVarint() {
+		BinaryReplayWriter.encodeVarint(-1, new byte[10], 0);
+	}
+
+	@Test
+	public void testSeekRound() throws IOException {
+		BinaryReplayReader reader = new BinaryReplayReader(writeReplay(1000));
+		try {
+			assertEquals(ROUNDS, reader.getRoundCount());
+			assertArrayEquals(new String[]{"a", "b"}, reader.getPlayerNames());
+			assertEquals(RULES.getSeed(), reader.getRules().getSeed());
+			assertEquals(RULES.isWalkDiagonal(), reader.getRules().isWalkDiagonal());
+			assertEquals(RULES.isMultipleActionsPerObject(), reader.getRules().isMultipleActionsPerObject());
+			assertEquals(RULES.getStartGameObjectMinDistance(), reader.getRules().getStartGameObjectMinDistance());
+			for (int i = 0; i < ROUNDS; i++) {
+				assertRound(reader, i);
+			}
+			assertFalse(reader.nextRound());
+
+			for (int round : new int[]{ROUNDS - 1, 0, 137, 3, 138, 299, 1}) {
+				reader.seekRound(round);
+				assertRound(reader, round);
+			}
+			reader.seekRound(ROUNDS);
+			assertFalse(reader.nextRound());
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testTruncated() throws IOException {
+		File file = writeReplay(1000);
+
+		// cut off the footer and the last byte of the last round
+		long footer = findFooter(file);
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.setLength(footer - 1);
+		raf.close();
+
+		BinaryReplayReader reader = new BinaryReplayReader(file);
+		try {
+			assertEquals(ROUNDS - 1, reader.getRoundCount());
+			for (int round : new int[]{151, 0, 150, ROUNDS - 2}) {
+				reader.seekRound(round);
+				assertRound(reader, round);
+			}
+			assertFalse(reader.nextRound());
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Return the offset of the footer of the given binary replay
+	 */
+	private long findFooter(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			raf.seek(raf.length() - 12);
+			return raf.readLong();
+		} finally {
+			raf.close();
+		}
+	}
+
+	@Test
+	public void testConvertRoundTrip() throws IOException {
+		File text = createTempFile(".txt");
+		PrintWriter writer = new PrintWriter(text);
+		writer.println("2 1000 40 30 1");
+		writer.println("a b");
+		writer.println("3 4");
+		writer.println("1 1");
+		writer.println("38 28");
+		for (int i = 0; i < ROUNDS; i++) {
+			writer.println("---");
+			writer.println(i % 2);
+			for (int j = 0; j < i % 4; j++) {
+				writer.println(j % 3 + " " + (i % 40) + " " + j + " " + (i % 40) + " " + (j + 1)
+						+ (j % 3 == 2 ? " " + i : ""));
+			}
+		}
+		writer.close();
+
+		File binary = createTempFile(".bin");
+		ReplayConverter.convert(text, binary);
+		assertTrue(BinaryReplayReader.isBinaryReplay(binary));
+		assertFalse(BinaryReplayReader.isBinaryReplay(text));
+
+		BinaryReplayReader reader = new BinaryReplayReader(binary);
+		try {
+			assertEquals(ROUNDS, reader.getRoundCount());
+			for (int i = 0; i < ROUNDS; i++) {
+				assertRound(reader, i);
+			}
+		} finally {
+			reader.close();
+		}
+
+		File back = createTempFile(".txt");
+		ReplayConverter.convert(binary, back);
+		assertEquals(readLines(text), readLines(back));
+	}
+
+	private List<String> readLines(File file) throws IOException {
+		List<String> lines = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lines.add(line);
+			}
+		} finally {
+			reader.close();
+		}
+		return lines;
+	}
+}
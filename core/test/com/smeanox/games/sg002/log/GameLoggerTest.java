@@ -0,0 +1,101 @@
+package com.smeanox.games.sg002.log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test the asynchronous mode of the GameLogger
+ *
+ * @author Benjamin Schmid
+ */
+public class GameLoggerTest {
+
+	private File folder;
+
+	@Before
+	public void setup() throws IOException {
+		folder = File.createTempFile("logger", "");
+		folder.delete();
+	}
+
+	@After
+	public void cleanup() {
+		for (File file : folder.listFiles()) {
+			file.delete();
+		}
+		folder.delete();
+	}
+
+	private GameLogger createLogger() {
+		GameLogger logger = GameLogger.createDummyLogger();
+		logger.setLogFolder(folder.getPath());
+		logger.setGameLogPath("game.txt");
+		logger.startAsync();
+		return logger;
+	}
+
+	/**
+	 * Return the number of lines of the game log, they have to be numbered consecutively from 0
+	 */
+	private int countLines() throws IOException {
+		BufferedReader reader = new BufferedReader(new FileReader(new File(folder, "game.txt")));
+		try {
+			int count = 0;
+			String line;
+			while ((line = reader.readLine()) != null) {
+				assertEquals(String.valueOf(count), line);
+				count++;
+			}
+			return count;
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testWriteAsync() throws IOException {
+		GameLogger logger = createLogger();
+		assertTrue(logger.isAsync());
+		for (int i = 0; i < 100000; i++) {
+			logger.game(String.valueOf(i));
+		}
+		logger.close();
+		assertEquals(100000, countLines());
+	}
+
+	@Test(timeout = 60000)
+	public void testCloseWhileLogging() throws Exception {
+		for (int run = 0; run < 50; run++) {
+			final GameLogger logger = createLogger();
+			final CountDownLatch started = new CountDownLatch(1);
+			Thread producer = new Thread() {
+				@Override
+				public void run() {
+					for (int i = 0; i < 100000; i++) {
+						if (i == 1000) {
+							started.countDown();
+						}
+						logger.game(String.valueOf(i));
+					}
+				}
+			};
+			producer.start();
+			started.await();
+			logger.close();
+			producer.join();
+
+			// the lines logged before close() are written, after that some more may be written in order
+			assertTrue(countLines() >= 1000);
+		}
+	}
+}
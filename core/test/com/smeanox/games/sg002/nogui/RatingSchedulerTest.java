@@ -0,0 +1,82 @@
+package com.smeanox.games.sg002.nogui;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test the RatingScheduler
+ *
+ * @author Benjamin Schmid
+ */
+public class RatingSchedulerTest {
+
+	/**
+	 * Add the results of the given games, the given player wins all of his games and all others draw
+	 */
+	private void addResults(RatingScheduler scheduler, List<List<Integer>> games, int winner) {
+		for (List<Integer> game : games) {
+			List<Boolean> survived = new ArrayList<Boolean>();
+			for (int player : game) {
+				survived.add(!game.contains(winner) || player == winner);
+			}
+			scheduler.addResult(game, survived);
+		}
+	}
+
+	@Test
+	public void testSeatRotation() {
+		RatingScheduler scheduler = new RatingScheduler(3, 3);
+		List<Set<Integer>> seats = new ArrayList<Set<Integer>>();
+		for (int i = 0; i < 3; i++) {
+			seats.add(new HashSet<Integer>());
+		}
+		for (int round = 0; round < 3; round++) {
+			List<List<Integer>> games = scheduler.nextRound();
+			assertEquals(1, games.size());
+			for (int seat = 0; seat < 3; seat++) {
+				seats.get(games.get(0).get(seat)).add(seat);
+			}
+			addResults(scheduler, games, -1);
+		}
+		for (Set<Integer> playerSeats : seats) {
+			assertEquals(3, playerSeats.size());
+		}
+	}
+
+	@Test
+	public void testEveryPlayerPlaysEveryRound() {
+		RatingScheduler scheduler = new RatingScheduler(5, 2);
+		for (int round = 0; round < 10; round++) {
+			List<List<Integer>> games = scheduler.nextRound();
+			Set<Integer> players = new HashSet<Integer>();
+			for (List<Integer> game : games) {
+				assertEquals(2, game.size());
+				assertEquals(2, new HashSet<Integer>(game).size());
+				players.addAll(game);
+			}
+			assertEquals(5, players.size());
+			addResults(scheduler, games, round % 5);
+		}
+	}
+
+	@Test
+	public void testDominantPlayerRankedFirst() {
+		RatingScheduler scheduler = new RatingScheduler(6, 2);
+		while (!scheduler.isFinished()) {
+			addResults(scheduler, scheduler.nextRound(), 4);
+		}
+		assertEquals(4, (int) scheduler.getRanking().get(0));
+		for (int i = 0; i < 6; i++) {
+			if (i != 4) {
+				assertTrue(scheduler.getRating(4) > scheduler.getRating(i) + scheduler.getConfidence(i));
+			}
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package com.smeanox.games.sg002.player;
+
+import com.smeanox.games.sg002.TestUtil;
+import com.smeanox.games.sg002.util.Consts;
+import com.smeanox.games.sg002.world.Action;
+import com.smeanox.games.sg002.world.GameController;
+import com.smeanox.games.sg002.world.GameObject;
+import com.smeanox.games.sg002.world.Scenario;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedList;
+
+/**
+ * Compares the bytes and allocations needed to encode one round for an external AI with the
+ * String based encoding ExternalAIPlayer used before the ProtocolWriter. Run from android/assets.
+ *
+ * @author Benjamin Schmid
+ */
+public class ProtocolWriterBenchmark {
+	private static final int PLAYERS = 8;
+	private static final int ROUNDS_BEFORE = 200;
+	private static final int WARMUP = 2000;
+	private static final int ITERATIONS = 10000;
+
+	public static void main(String[] args) {
+		TestUtil.setupConfig();
+		GameController gameController = new GameController(Scenario.getScanarioById("vast"), null);
+		for (int i = 0; i < PLAYERS; i++) {
+			AIPlayer_BenNo1 player = new AIPlayer_BenNo1();
+			player.seed0 = 1000 + i;
+			player.seed1 = 77 + i;
+			gameController.addPlayer(player);
+		}
+		gameController.startGame();
+		for (int i = 0; i < ROUNDS_BEFORE && !gameController.isGameEnded(); i++) {
+			gameController.getActivePlayer().finishRoundNow();
+		}
+
+		ExternalAIPlayer player = new ExternalAIPlayer();
+		player.setGameController(gameController);
+		player.setId(0);
+		player.gameWorld = gameController.getGameWorld();
+
+		System.out.println(gameController.getGameWorld().getGameObjects().size() + " GameObjects, "
+				+ PLAYERS + " players");
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		PrintWriter printWriter = new PrintWriter(out, false);
+		for (int i = 0; i < WARMUP; i++) {
+			out.reset();
+			feedRoundBefore(player, printWriter);
+		}
+		long allocated = allocatedBytes();
+		long time = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			out.reset();
+			feedRoundBefore(player, printWriter);
+		}
+		report("before", out.size(), allocatedBytes() - allocated, System.nanoTime() - time);
+
+		int size = 0;
+		for (int i = 0; i < WARMUP; i++) {
+			size = player.encodeRound().size();
+		}
+		allocated = allocatedBytes();
+		time = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			size = player.encodeRound().size();
+		}
+		report("after", size, allocatedBytes() - allocated, System.nanoTime() - time);
+
+		String before = out.toString().replace(System.getProperty("line.separator"), "\n");
+		System.out.println("same output: " + before.equals(player.encodeRound().toString()));
+	}
+
+	private static void report(String name, int bytes, long allocated, long nanos) {
+		System.out.println(name + ": " + bytes + " bytes/round, " + allocated / ITERATIONS
+				+ " bytes allocated/round, " + nanos / ITERATIONS + " ns/round");
+	}
+
+	private static long allocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+				.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static String joinValues(Object... values) {
+		LinkedList<String> vals = new LinkedList<String>();
+		for (Object o : values) {
+			vals.add(o.toString());
+		}
+		return String.join(" ", vals);
+	}
+
+	/**
+	 * The encoding of a round as it was done before, including the flushes
+	 */
+	private static void feedRoundBefore(ExternalAIPlayer player, PrintWriter programIn) {
+		GameController gameController = player.gameController;
+		for (Player aPlayer : gameController.getPlayers()) {
+			programIn.println(aPlayer.getMoney());
+		}
+		programIn.flush();
+
+		programIn.println(player.gameWorld.getGameObjects().size());
+		for (GameObject gameObject : player.gameWorld.getGameObjects()) {
+			programIn.println(joinValues(gameObject.getPlayer().getId(), gameObject.getPositionX(),
+					gameObject.getPositionY(), gameObject.getGameObjectType().getExternalId(),
+					gameObject.getHp()));
+		}
+		programIn.flush();
+
+		LinkedList<String> lines = new LinkedList<String>();
+		for (int i = 1; i < gameController.getPlayers().size(); i++) {
+			Player aPlayer = gameController.getPlayers().get((player.getId() + i) % gameController.getPlayers().size());
+			if (player.gameWorld.getPlayerActions().containsKey(aPlayer)) {
+				for (Action action : player.gameWorld.getPlayerActions().get(aPlayer)) {
+					String actionID = null;
+					switch (action.actionType) {
+						case MOVE:
+							actionID = Consts.MOVE_ID;
+							break;
+						case FIGHT:
+							actionID = Consts.FIGHT_ID;
+							break;
+						case PRODUCE:
+							actionID = Consts.PRODUCE_ID;
+							break;
+						case NONE:
+							break;
+					}
+					String line = joinValues(aPlayer.getId(), actionID, action.startX, action.startY,
+							action.endX, action.endY);
+					if (action.actionType == Action.ActionType.PRODUCE) {
+						line += " " + action.produceGameObjectType.getExternalId();
+					}
+					lines.add(line);
+				}
+			}
+		}
+		programIn.println(lines.size());
+		for (String line : lines) {
+			programIn.println(line);
+		}
+		programIn.flush();
+	}
+}
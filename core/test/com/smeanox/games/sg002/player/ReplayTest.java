@@ -0,0 +1,175 @@
+package com.smeanox.games.sg002.player;
+
+import com.smeanox.games.sg002.TestUtil;
+import com.smeanox.games.sg002.log.GameLogger;
+import com.smeanox.games.sg002.log.ReplayConverter;
+import com.smeanox.games.sg002.util.Consts;
+import com.smeanox.games.sg002.util.ProgramArguments;
+import com.smeanox.games.sg002.world.GameController;
+import com.smeanox.games.sg002.world.Scenario;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test replaying game logs and the verification of their checksums
+ *
+ * @author Benjamin Schmid
+ */
+public class ReplayTest {
+
+	private static final int TAMPERED_ROUND = 5;
+
+	private File folder;
+	private List<String> gameLog;
+
+	@Before
+	public void setup() throws IOException {
+		TestUtil.setupConfig();
+		folder = File.createTempFile("replay", "");
+		folder.delete();
+
+		GameLogger logger = GameLogger.createDummyLogger();
+		logger.setLogFolder(folder.getPath());
+		logger.setGameLogPath("game.txt");
+		logger.setBinaryGameLogPath("game.bin");
+		GameController gameController = new GameController(Scenario.getScanarioById("small"), logger);
+		for (int i = 0; i < 2; i++) {
+			Player player = new AIPlayer_BenNo1();
+			gameController.addPlayer(player);
+			player.setShowGUI(false);
+			player.setName("p" + i);
+		}
+		gameController.playUntilEnd();
+
+		gameLog = readLines(new File(folder, "game.txt"));
+	}
+
+	@After
+	public void cleanup() {
+		ProgramArguments.replay = null;
+		for (File file : folder.listFiles()) {
+			file.delete();
+		}
+		folder.delete();
+	}
+
+	private List<String> readLines(File file) throws IOException {
+		List<String> lines = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lines.add(line);
+			}
+		} finally {
+			reader.close();
+		}
+		return lines;
+	}
+
+	private File writeLines(String name, List<String> lines) throws IOException {
+		File file = new File(folder, name);
+		PrintWriter writer = new PrintWriter(file);
+		for (String line : lines) {
+			writer.println(line);
+		}
+		writer.close();
+		return file;
+	}
+
+	/**
+	 * Replay the given game log as far as possible
+	 *
+	 * @return the replay after it stopped
+	 */
+	private Replay play(File file) {
+		ProgramArguments.replay = file.getPath();
+		ReplayLoader loader = new ReplayLoader();
+		loader.run();
+		Replay replay = loader.getReplay();
+		assertNotNull(replay);
+		replay.getGameController().startGame();
+		replay.seekRound(Integer.MAX_VALUE);
+		return replay;
+	}
+
+	/**
+	 * Return the game log with a wrong checksum after the given round
+	 */
+	private List<String> tamper(int round) {
+		List<String> lines = new ArrayList<String>(gameLog);
+		int checksums = 0;
+		for (int i = 0; i < lines.size(); i++) {
+			if (lines.get(i).startsWith(Consts.CHECKSUM_ID + " ") && checksums++ == round) {
+				lines.set(i, Consts.CHECKSUM_ID + " 0");
+				return lines;
+			}
+		}
+		throw new IllegalStateException("the game log has less than " + round + " rounds");
+	}
+
+	@Test
+	public void testChecksumsLogged() {
+		int rounds = 0;
+		int checksums = 0;
+		for (String line : gameLog) {
+			if (Consts.NEXT_ROUND_ID.equals(line)) {
+				rounds++;
+			} else if (line.startsWith(Consts.CHECKSUM_ID + " ")) {
+				checksums++;
+			}
+		}
+		assertTrue(rounds > TAMPERED_ROUND);
+		assertEquals(rounds, checksums);
+	}
+
+	@Test
+	public void testReplayVerified() throws IOException {
+		Replay replay = play(new File(folder, "game.txt"));
+		assertTrue(replay.getGameController().isGameEnded());
+		replay.close();
+	}
+
+	@Test
+	public void testBinaryReplayVerified() throws IOException {
+		Replay replay = play(new File(folder, "game.bin"));
+		assertTrue(replay.getGameController().isGameEnded());
+		Scenario scenario = Scenario.getScanarioById("small");
+		assertEquals(scenario.getSeed(), replay.getGameController().getRules().getSeed());
+		assertEquals(scenario.isWalkDiagonal(), replay.getGameController().getRules().isWalkDiagonal());
+		replay.close();
+	}
+
+	@Test
+	public void testTamperedChecksum() throws IOException {
+		Replay replay = play(writeLines("tampered.txt", tamper(TAMPERED_ROUND)));
+		assertEquals(TAMPERED_ROUND, replay.getRound());
+		assertFalse(replay.getGameController().isGameEnded());
+		replay.close();
+	}
+
+	@Test
+	public void testTamperedChecksumBinary() throws IOException {
+		File binary = new File(folder, "tampered.bin");
+		ReplayConverter.convert(writeLines("tampered.txt", tamper(TAMPERED_ROUND)), binary);
+		Replay replay = play(binary);
+		assertEquals(TAMPERED_ROUND, replay.getRound());
+		assertFalse(replay.getGameController().isGameEnded());
+		replay.close();
+	}
+}
@@ -0,0 +1,56 @@
+package com.smeanox.games.sg002.world;
+
+import com.smeanox.games.sg002.TestUtil;
+import com.smeanox.games.sg002.player.ReplayPlayer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+/**
+ * Test the GameController
+ *
+ * @author Benjamin Schmid
+ */
+public class GameControllerTest {
+
+	Scenario scenario;
+	GameController gameController;
+
+	@Before
+	public void setup(){
+		TestUtil.setupConfig();
+		scenario = TestUtil.createTestScenario();
+		gameController = new GameController(scenario, null);
+	}
+
+	@Test
+	public void testPlayUntilEnd() {
+		ArrayList<ReplayPlayer> players = new ArrayList<ReplayPlayer>();
+		for (int i = 0; i < 2; i++) {
+			ReplayPlayer player = new ReplayPlayer();
+			LinkedList<LinkedList<Action>> actions = new LinkedList<LinkedList<Action>>();
+			for (int j = 0; j < 3; j++) {
+				actions.add(new LinkedList<Action>());
+			}
+			player.setActions(actions);
+			players.add(player);
+			gameController.addPlayer(player);
+		}
+
+		// both players finish three rounds right away, then the first one runs out of actions
+		try {
+			gameController.playUntilEnd();
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals(players.get(0), gameController.getActivePlayer());
+			assertFalse(gameController.isGameEnded());
+		}
+	}
+}
@@ -3,7 +3,6 @@ package com.smeanox.games.sg002.world;
 import com.smeanox.games.sg002.TestUtil;
 import com.smeanox.games.sg002.player.LocalPlayer;
 import com.smeanox.games.sg002.player.Player;
-import com.smeanox.games.sg002.util.Consts;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -11,6 +10,7 @@ import org.junit.Test;
 import java.util.ArrayList;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -53,7 +53,7 @@ public class GameWorldTest {
 		}
 
 		assertEquals(players.size(), gameWorld.getGameObjects().size());
-		assertEquals(scenario.getStartGameObjectMinDistance(), Consts.startGameObjectMinDistance);
+		assertEquals(scenario.getStartGameObjectMinDistance(), gameController.getRules().getStartGameObjectMinDistance());
 
 		int minDist = Integer.MAX_VALUE;
 		for(GameObject gameObject1 : gameWorld.getGameObjects()){
@@ -90,6 +90,357 @@ public class GameWorldTest {
 		assertEquals(scenario.getStartMoney() + GameObjectType.getStartGameObjectType().getValuePerRound(), players.get(0).getMoney());
 	}
 
+	@Test
+	public void testPlayerAggregates() {
+		ArrayList<Player> players = new ArrayList<Player>();
+		for (int i = 0; i < 2; i++) {
+			players.add(new LocalPlayer());
+			gameController.addPlayer(players.get(i));
+		}
+		gameWorld.startRound(players.get(0), true);
+
+		GameObjectType startType = GameObjectType.getStartGameObjectType();
+		GameObjectType villager = GameObjectType.getGameObjectTypeById("villager");
+		assertEquals(2, gameWorld.countLivingPlayers());
+		assertEquals(1, gameWorld.countGameObjects(players.get(0)));
+		assertEquals(1, gameWorld.countGameObjects(players.get(0), startType));
+		assertEquals(0, gameWorld.countGameObjects(players.get(0), villager));
+
+		int startX = scenario.getStartPos(0).x;
+		int startY = scenario.getStartPos(0).y;
+		boolean produced = false;
+		for (int y = startY - 2; y <= startY + 2 && !produced; y++) {
+			for (int x = startX - 2; x <= startX + 2 && !produced; x++) {
+				produced = gameWorld.produce(startX, startY, x, y, villager);
+			}
+		}
+		assertTrue(produced);
+		assertEquals(2, gameWorld.countGameObjects(players.get(0)));
+		assertEquals(1, gameWorld.countGameObjects(players.get(0), villager));
+
+		int money = players.get(0).getMoney();
+		gameWorld.startRound(players.get(0), true);
+		assertEquals(money + startType.getValuePerRound() + villager.getValuePerRound(), players.get(0).getMoney());
+
+		gameWorld.removeGameObject(scenario.getStartPos(1).x, scenario.getStartPos(1).y);
+		assertFalse(gameWorld.isPlayerStillAlive(players.get(1)));
+		assertEquals(1, gameWorld.countLivingPlayers());
+		assertEquals(0, gameWorld.countGameObjects(players.get(1)));
+	}
+
+	@Test
+	public void testUsedActions() {
+		ArrayList<Player> players = new ArrayList<Player>();
+		for (int i = 0; i < 2; i++) {
+			players.add(new LocalPlayer());
+			gameController.addPlayer(players.get(i));
+		}
+		gameWorld.startRound(players.get(0), true);
+
+		int startX = scenario.getStartPos(0).x;
+		int startY = scenario.getStartPos(0).y;
+		GameObject townCenter = gameWorld.getWorldGameObject(startX, startY);
+		townCenter.use(Action.ActionType.PRODUCE);
+		assertTrue(townCenter.wasUsed(Action.ActionType.PRODUCE));
+		assertFalse(townCenter.wasUsed(Action.ActionType.MOVE));
+		assertTrue(gameWorld.wasUsed(startX, startY));
+
+		gameWorld.startRound(players.get(1), true);
+		assertFalse(townCenter.wasUsed(Action.ActionType.PRODUCE));
+		assertTrue(townCenter.isCanDoAction(Action.ActionType.PRODUCE));
+		assertFalse(gameWorld.wasUsed(startX, startY));
+
+		gameWorld.startRound(players.get(0), false);
+		townCenter.use(Action.ActionType.PRODUCE);
+		gameWorld.startRound(players.get(1), false);
+		assertTrue(townCenter.wasUsed(Action.ActionType.PRODUCE));
+
+		Scenario singleActionScenario = new Scenario("test", "test", 1000, 8, 15, 20, true, 4, 314159265358979L, 2, false);
+		GameController singleActionController = new GameController(singleActionScenario, null);
+		assertFalse(singleActionController.getRules().isMultipleActionsPerObject());
+		gameWorld.startRound(players.get(0), true);
+		townCenter.use(Action.ActionType.MOVE);
+		assertFalse(townCenter.wasUsed(Action.ActionType.PRODUCE));
+
+		Player player = new LocalPlayer();
+		singleActionController.addPlayer(player);
+		singleActionController.getGameWorld().startRound(player, true);
+		GameObject singleActionTownCenter = singleActionController.getGameWorld().getGameObjects().iterator().next();
+		singleActionTownCenter.use(Action.ActionType.MOVE);
+		for (Action.ActionType actionType : Action.ActionType.values()) {
+			assertTrue(singleActionTownCenter.wasUsed(actionType));
+		}
+	}
+
+	private String describeWorld(GameWorld gameWorld, ArrayList<Player> players) {
+		StringBuilder sb = new StringBuilder();
+		for (GameObject gameObject : gameWorld.getGameObjects()) {
+			sb.append(gameObject.getPositionX()).append(',').append(gameObject.getPositionY()).append(':')
+					.append(gameObject.getGameObjectType().getId()).append(',')
+					.append(players.indexOf(gameObject.getPlayer())).append(',')
+					.append(gameObject.getHp());
+			for (Action.ActionType actionType : Action.ActionType.values()) {
+				sb.append(gameObject.wasUsed(actionType) ? '1' : '0');
+			}
+			sb.append(gameWorld.getWorldGameObject(gameObject.getPositionX(), gameObject.getPositionY()) == gameObject);
+			sb.append(';');
+		}
+		for (Player player : players) {
+			sb.append(gameWorld.getMoney(player)).append(',')
+					.append(gameWorld.countGameObjects(player)).append(',')
+					.append(gameWorld.getPlayerActions().get(player)).append(';');
+		}
+		sb.append(gameWorld.countLivingPlayers()).append(';').append(gameWorld.getHash());
+		assertEquals(gameWorld.getWorldState().computeHash(), gameWorld.getHash());
+		return sb.toString();
+	}
+
+	@Test
+	public void testApplyUndo() {
+		ArrayList<Player> players = new ArrayList<Player>();
+		for (int i = 0; i < 2; i++) {
+			players.add(new LocalPlayer());
+			gameController.addPlayer(players.get(i));
+		}
+		gameWorld.startRound(players.get(0), true);
+
+		GameObjectType archer = GameObjectType.getGameObjectTypeById("archer");
+		int startX = scenario.getStartPos(0).x;
+		int startY = scenario.getStartPos(0).y;
+		int enemyX = scenario.getStartPos(1).x;
+		int enemyY = scenario.getStartPos(1).y;
+
+		String before = describeWorld(gameWorld, players);
+		int token = -1;
+		for (int y = startY - 2; y <= startY + 2 && token < 0; y++) {
+			for (int x = startX - 2; x <= startX + 2 && token < 0; x++) {
+				token = gameWorld.apply(new Action(Action.ActionType.PRODUCE, startX, startY, x, y, archer));
+			}
+		}
+		assertTrue(token >= 0);
+		assertEquals(2, gameWorld.countGameObjects(players.get(0)));
+		gameWorld.undo(token);
+		assertEquals(before, describeWorld(gameWorld, players));
+
+		assertEquals(-1, gameWorld.apply(new Action(Action.ActionType.MOVE, startX, startY, startX + 1, startY)));
+		assertEquals(before, describeWorld(gameWorld, players));
+
+		GameObject archerObject = null;
+		for (int y = startY - 2; y <= startY + 2 && archerObject == null; y++) {
+			for (int x = startX - 2; x <= startX + 2 && archerObject == null; x++) {
+				if (gameWorld.produce(startX, startY, x, y, archer)) {
+					archerObject = gameWorld.getWorldGameObject(x, y);
+				}
+			}
+		}
+		assertNotNull(archerObject);
+
+		for (int round = 0; round < 20; round++) {
+			gameWorld.startRound(players.get(1), true);
+			gameWorld.startRound(players.get(0), true);
+			if (gameWorld.canFight(archerObject.getPositionX(), archerObject.getPositionY(), enemyX, enemyY)) {
+				break;
+			}
+			int bestX = -1, bestY = -1, bestDist = Integer.MAX_VALUE;
+			for (int y = 0; y < gameWorld.getMapSizeY(); y++) {
+				for (int x = 0; x < gameWorld.getMapSizeX(); x++) {
+					int dist = Math.abs(Math.max(Math.abs(x - enemyX), Math.abs(y - enemyY)) - 6);
+					if (dist < bestDist && gameWorld.canMove(archerObject.getPositionX(), archerObject.getPositionY(), x, y)) {
+						bestX = x;
+						bestY = y;
+						bestDist = dist;
+					}
+				}
+			}
+			gameWorld.move(archerObject.getPositionX(), archerObject.getPositionY(), bestX, bestY);
+		}
+		assertTrue(gameWorld.canFight(archerObject.getPositionX(), archerObject.getPositionY(), enemyX, enemyY));
+
+		GameObject enemy = gameWorld.getWorldGameObject(enemyX, enemyY);
+		enemy.setHp(1);
+		before = describeWorld(gameWorld, players);
+		token = gameWorld.apply(new Action(Action.ActionType.FIGHT,
+				archerObject.getPositionX(), archerObject.getPositionY(), enemyX, enemyY));
+		assertTrue(token >= 0);
+		assertNull(gameWorld.getWorldGameObject(enemyX, enemyY));
+		assertFalse(gameWorld.isPlayerStillAlive(players.get(1)));
+		gameWorld.undo(token);
+		assertEquals(before, describeWorld(gameWorld, players));
+		assertTrue(enemy == gameWorld.getWorldGameObject(enemyX, enemyY));
+		assertTrue(gameWorld.isPlayerStillAlive(players.get(1)));
+	}
+
+	@Test
+	public void testSnapshot() {
+		ArrayList<Player> players = new ArrayList<Player>();
+		for (int i = 0; i < 2; i++) {
+			players.add(new LocalPlayer());
+			gameController.addPlayer(players.get(i));
+		}
+		gameWorld.startRound(players.get(0), true);
+
+		String before = describeWorld(gameWorld, players);
+		GameWorld snapshot = gameWorld.snapshot();
+		assertEquals(before, describeWorld(snapshot, players));
+
+		GameObjectType villager = GameObjectType.getGameObjectTypeById("villager");
+		int startX = scenario.getStartPos(0).x;
+		int startY = scenario.getStartPos(0).y;
+		boolean produced = false;
+		for (int y = startY - 2; y <= startY + 2 && !produced; y++) {
+			for (int x = startX - 2; x <= startX + 2 && !produced; x++) {
+				produced = snapshot.produce(startX, startY, x, y, villager);
+			}
+		}
+		assertTrue(produced);
+		snapshot.startRound(players.get(1), true);
+
+		assertEquals(before, describeWorld(gameWorld, players));
+		assertEquals(gameWorld.getMoney(players.get(0)), players.get(0).getMoney());
+		assertEquals(2, snapshot.countGameObjects(players.get(0)));
+		assertEquals(gameWorld.getMoney(players.get(0)) - villager.getValue(), snapshot.getMoney(players.get(0)));
+		assertEquals(1, snapshot.getPlayerActions().get(players.get(0)).size());
+		assertTrue(snapshot.getWorldGameObject(startX, startY) != gameWorld.getWorldGameObject(startX, startY));
+
+		gameWorld.removeGameObject(scenario.getStartPos(1).x, scenario.getStartPos(1).y);
+		assertTrue(snapshot.isPlayerStillAlive(players.get(1)));
+		assertEquals(2, snapshot.countLivingPlayers());
+	}
+
+	@Test
+	public void testHash() {
+		ArrayList<Player> players = new ArrayList<Player>();
+		for (int i = 0; i < 2; i++) {
+			players.add(new LocalPlayer());
+			gameController.addPlayer(players.get(i));
+		}
+		gameWorld.startRound(players.get(0), true);
+		long hash = gameWorld.getHash();
+
+		GameWorld other = new GameController(scenario, null).getGameWorld();
+		for (Player player : players) {
+			player.setMoney(scenario.getStartMoney());
+			other.addStartGameObjects(player, GameObjectType.getStartGameObjectType());
+		}
+		other.startRound(players.get(0), true);
+		assertEquals(hash, other.getHash());
+
+		int startX = scenario.getStartPos(0).x;
+		int startY = scenario.getStartPos(0).y;
+		GameObjectType villager = GameObjectType.getGameObjectTypeById("villager");
+		int villagerX = -1, villagerY = -1;
+		for (int y = startY - 1; y <= startY + 1 && villagerX < 0; y++) {
+			for (int x = startX - 1; x <= startX + 1 && villagerX < 0; x++) {
+				if (gameWorld.produce(startX, startY, x, y, villager)) {
+					villagerX = x;
+					villagerY = y;
+				}
+			}
+		}
+		assertTrue(villagerX >= 0);
+		assertTrue(hash != gameWorld.getHash());
+		assertEquals(gameWorld.getWorldState().computeHash(), gameWorld.getHash());
+
+		gameWorld.startRound(players.get(1), true);
+		gameWorld.startRound(players.get(0), true);
+		assertEquals(gameWorld.getWorldState().computeHash(), gameWorld.getHash());
+		hash = gameWorld.getHash();
+		assertTrue(gameWorld.move(villagerX, villagerY, startX, startY + 2)
+				|| gameWorld.move(villagerX, villagerY, startX, startY - 2));
+		assertTrue(hash != gameWorld.getHash());
+		assertEquals(gameWorld.getWorldState().computeHash(), gameWorld.getHash());
+		assertEquals(gameWorld.getHash(), gameWorld.snapshot().getHash());
+	}
+
+	@Test
+	public void testOffsets() {
+		for (GameObjectType gameObjectType : GameObjectType.getAllGameObjectTypes()) {
+			for (Action.ActionType actionType : Action.ActionType.values()) {
+				for (boolean walkDiagonal : new boolean[]{false, true}) {
+					int[] offsets = gameObjectType.getOffsets(actionType, walkDiagonal);
+					int i = 0;
+					for (int dy = -10; dy <= 10; dy++) {
+						for (int dx = -10; dx <= 10; dx++) {
+							int dist = walkDiagonal ? Math.max(Math.abs(dx), Math.abs(dy)) : Math.abs(dx) + Math.abs(dy);
+							if (gameObjectType.isWithinRadius(actionType, dist)) {
+								assertEquals(dx, offsets[i++]);
+								assertEquals(dy, offsets[i++]);
+							}
+						}
+					}
+					assertEquals(offsets.length, i);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testGenerateLegalActions() {
+		ArrayList<Player> players = new ArrayList<Player>();
+		for (int i = 0; i < 2; i++) {
+			players.add(new LocalPlayer());
+			gameController.addPlayer(players.get(i));
+		}
+		gameWorld.startRound(players.get(0), true);
+		ActionBuffer buffer = new ActionBuffer();
+		assertEquals(0, gameWorld.generateLegalActions(players.get(1), buffer));
+
+		for (int round = 0; round < 3; round++) {
+			buffer.clear();
+			int count = gameWorld.generateLegalActions(players.get(0), buffer);
+			assertEquals(count, buffer.size());
+
+			int expected = 0;
+			for (GameObject gameObject : gameWorld.getGameObjects()) {
+				if (gameObject.getPlayer() != players.get(0)) {
+					continue;
+				}
+				int startX = gameObject.getPositionX();
+				int startY = gameObject.getPositionY();
+				for (int y = 0; y < gameWorld.getMapSizeY(); y++) {
+					for (int x = 0; x < gameWorld.getMapSizeX(); x++) {
+						expected += gameWorld.canMove(startX, startY, x, y) ? 1 : 0;
+						expected += gameWorld.canFight(startX, startY, x, y) ? 1 : 0;
+						for (GameObjectType gameObjectType : GameObjectType.getAllGameObjectTypes()) {
+							expected += gameWorld.canProduce(startX, startY, x, y, gameObjectType) ? 1 : 0;
+						}
+					}
+				}
+			}
+			assertEquals(expected, count);
+			assertTrue(count > 0);
+
+			for (int i = 0; i < count; i++) {
+				int token = gameWorld.apply(buffer.getAction(i));
+				assertTrue(token >= 0);
+				gameWorld.undo(token);
+			}
+			gameWorld.doAction(buffer.getAction(count - 1));
+			gameWorld.startRound(players.get(1), true);
+			gameWorld.startRound(players.get(0), true);
+		}
+	}
+
+	@Test
+	public void testFrozenRegistry() {
+		assertNull(GameObjectType.getGameObjectTypeByExternalId(-1));
+		assertNull(GameObjectType.getGameObjectTypeByExternalId(1000));
+		for (GameObjectType gameObjectType : GameObjectType.getAllGameObjectTypes()) {
+			assertTrue(gameObjectType == GameObjectType.getGameObjectTypeByExternalId(gameObjectType.getExternalId()));
+			assertFalse(gameObjectType.canProduce(null));
+			for (GameObjectType other : GameObjectType.getAllGameObjectTypes()) {
+				if (gameObjectType.getDamageTable().containsKey(other)) {
+					assertEquals((int) gameObjectType.getDamageTable().get(other), gameObjectType.getDamage(other));
+				}
+				assertEquals(gameObjectType.getCanProduceList().contains(other), gameObjectType.canProduce(other));
+			}
+			for (MapObjectType mapObjectType : MapObjectType.getMapObjectTypes()) {
+				assertEquals(mapObjectType.getAllowedGameObjectTypes().contains(gameObjectType),
+						mapObjectType.isGameObjectTypeAllowed(gameObjectType));
+			}
+		}
+	}
+
 	@Test
 	public void testGetWorldMap() {
 		Player player = new LocalPlayer();
@@ -5,13 +5,16 @@ import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
 import com.badlogic.gdx.graphics.Texture;
 import com.smeanox.games.sg002.SG002;
 import com.smeanox.games.sg002.SG002NoGui;
+import com.smeanox.games.sg002.log.ReplayConverter;
 import com.smeanox.games.sg002.nogui.InvalidConfigurationException;
 import com.smeanox.games.sg002.util.Consts;
 import com.smeanox.games.sg002.util.ProgramArguments;
 
 import java.awt.GraphicsDevice;
 import java.awt.GraphicsEnvironment;
+import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 
 public class DesktopLauncher {
 	public static void main(String[] arg) {
@@ -19,7 +22,13 @@ public class DesktopLauncher {
 			return;
 		}
 
-		if(ProgramArguments.noGUI){
+		if(ProgramArguments.convertReplay != null){
+			try {
+				ReplayConverter.convert(new File(ProgramArguments.convertReplay), new File(ProgramArguments.convertReplayOut));
+			} catch (IOException e) {
+				System.out.println(e.getMessage());
+			}
+		} else if(ProgramArguments.noGUI){
 			try {
 				new SG002NoGui().start();
 			} catch (FileNotFoundException e) {